@@ -70,8 +70,9 @@ public class SampleActivity extends Activity implements ActivityCompat.OnRequest
         } else {
             Tree tree = new Wood();
             Timber.builder()
-                    .addSeeds(Seed.class)
+                    .addTrees(Seed_Forest.trees())
                     .addTrees(tree)
+                    .lazy()
                     .build();
         }
     }
@@ -101,7 +102,7 @@ public class SampleActivity extends Activity implements ActivityCompat.OnRequest
                                     @NonNull int[] grantResults) {
 
         Timber.builder()
-                .addSeeds(Seed.class)
+                .addTrees(Seed_Forest.trees())
                 .addTrees(new Wood())
                 .build();
     }
@@ -0,0 +1,48 @@
+package woods.log.timber;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+
+/**
+ * Logging calls through the forest, with trees planted letting go D and above.
+ */
+@State(Scope.Benchmark)
+public class ForestBenchmark {
+
+    @Param({"0", "1", "3"})
+    public int trees;
+
+    private int N = 0;
+
+
+    @Setup
+    public void plant() {
+        Timber.uprootall();
+        for (int i = 0; i < trees; i++) {
+            Timber.plant(Saplings.wood(Level.D));
+        }
+    }
+
+    @TearDown
+    public void uproot() {
+        Timber.uprootall();
+    }
+
+    @Benchmark
+    public void d() {
+        Timber.d("request %d done", N++);
+    }
+
+    /**
+     * A level no tree lets go.
+     */
+    @Benchmark
+    public void disabled() {
+        Timber.v("request %d done", N++);
+    }
+}
@@ -0,0 +1,63 @@
+package woods.log.timber;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+
+/**
+ * Rendering a logging call: formatting the message, key-values as text or JSON, and the whole
+ * way a wood writes an event.
+ */
+@State(Scope.Thread)
+public class FormatBenchmark {
+
+    private static final String FORMAT = "request %d done in %d ms";
+
+    private final Event Event = new Event();
+
+    private final Fields Fields = new Fields();
+
+    private Wood Wood;
+
+
+    @Setup
+    public void setup() {
+        Event.probe("Api", Level.I, null);
+
+        Fields.put("user", 42L);
+        Fields.put("ms", 12.5);
+        Fields.put("path", (Object) "/a b");
+
+        Wood = Saplings.wood(Level.D);
+    }
+
+    @Benchmark
+    public String format() {
+        return Tools.format(FORMAT, 42, 12);
+    }
+
+    @Benchmark
+    public String text() {
+        Event.bind(FORMAT, new Object[]{42, 12});
+        Event.fields = Fields;
+        return Event.text();
+    }
+
+    @Benchmark
+    public String json() {
+        Event.bind(FORMAT, new Object[]{42, 12});
+        Event.fields = Fields;
+        return JsonEncoder.encode(Event, "Api", null);
+    }
+
+    /**
+     * Tag and message built by a wood, written to the shadow of logcat.
+     */
+    @Benchmark
+    public void wood() {
+        Event.bind(FORMAT, new Object[]{42, 12});
+        Wood.log(Event);
+    }
+}
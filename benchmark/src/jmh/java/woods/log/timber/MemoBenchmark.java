@@ -0,0 +1,120 @@
+package woods.log.timber;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * Memo capturing recorded logcat lines into level files, and draining the off-heap buffer.
+ * Files are written to nowhere.
+ */
+@State(Scope.Thread)
+public class MemoBenchmark {
+
+    private String[] Lines;
+
+    private int N = 0;
+
+    private Wood.Memo Memo;
+
+    private MemoBuffer Buffer;
+
+    private FileChannel[] Channels;
+
+    private final AtomicLongArray Bytes = new AtomicLongArray(Level.values().length);
+
+
+    @Setup
+    public void setup() throws Exception {
+        Lines = record("/logcat.txt");
+
+        Spec spec = new SpecBuilder().level(Level.V)
+                .filters(Level.V, Level.D, Level.I, Level.W, Level.E).build();
+
+        BufferedWriter[] writers = new BufferedWriter[Level.A.ordinal()];
+        for (int i = 0; i < writers.length; i++) {
+            writers[i] = new BufferedWriter(new NullWriter());
+        }
+
+        Memo = Saplings.wood(Level.V).new Memo(null, null);
+        Memo.attach(Level.V, spec, writers);
+
+        Buffer = new MemoBuffer(1 << 20);
+        Channels = new FileChannel[Level.values().length];
+        Channels[Level.ALL.ordinal()] = new FileOutputStream(nowhere()).getChannel();
+    }
+
+    @TearDown
+    public void teardown() throws IOException {
+        Channels[Level.ALL.ordinal()].close();
+    }
+
+    /**
+     * A line read from logcat, written into the file of all and the one of its level.
+     */
+    @Benchmark
+    public void readLine() {
+        Memo.readLine(Lines[N++ % Lines.length]);
+    }
+
+    /**
+     * A line put into the buffer by a logging call, then drained by memo.
+     */
+    @Benchmark
+    public long drain() throws IOException {
+        String line = Lines[N++ % Lines.length];
+        Buffer.put(Level.I.ordinal(), true, false, System.currentTimeMillis(), 4242, "Api", line);
+        return Buffer.drain(Channels, Bytes);
+    }
+
+    private static String[] record(String resource) throws IOException {
+        ArrayList<String> lines = new ArrayList<>();
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+                MemoBenchmark.class.getResourceAsStream(resource), "UTF-8"));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        } finally {
+            reader.close();
+        }
+
+        return lines.toArray(new String[lines.size()]);
+    }
+
+    private static File nowhere() {
+        boolean windows = System.getProperty("os.name").startsWith("Windows");
+        return new File(windows ? "NUL" : "/dev/null");
+    }
+
+    private static final class NullWriter extends Writer {
+
+        @Override
+        public void write(char[] chars, int offset, int length) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package woods.log.timber;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+
+/**
+ * Probing the milieu of a logging call, the stack walk every call pays.
+ */
+@State(Scope.Thread)
+public class MilieuBenchmark {
+
+    private final Event Event = new Event();
+
+
+    @Benchmark
+    public Milieu probe() {
+        Event.probe(null, Level.D, null);
+        return Event;
+    }
+
+    @Benchmark
+    public Milieu construct() {
+        Event event = new Event();
+        event.probe(null, Level.D, null);
+        return event;
+    }
+}
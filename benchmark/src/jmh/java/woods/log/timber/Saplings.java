@@ -0,0 +1,31 @@
+package woods.log.timber;
+
+import android.support.annotation.NonNull;
+
+
+/**
+ * Trees for benchmarks, planting them starts no memo.
+ */
+final class Saplings {
+
+    private Saplings() {
+    }
+
+    /**
+     * A wood letting go logs of the level and above, written to the shadow of logcat.
+     */
+    static Wood wood(@NonNull Level level) {
+        Wood wood = new Wood() {
+            @Override
+            public void plant() {
+            }
+
+            @Override
+            public void uproot() {
+            }
+        };
+
+        wood.pin(new SpecBuilder().level(level).build());
+        return wood;
+    }
+}
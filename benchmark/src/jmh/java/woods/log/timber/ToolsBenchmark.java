@@ -0,0 +1,52 @@
+package woods.log.timber;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+
+/**
+ * Tools on the logging path: exceptions written and told apart, names picked out of stacks.
+ */
+@State(Scope.Thread)
+public class ToolsBenchmark {
+
+    private Throwable Exception;
+
+    private final StackTraceElement Element = new StackTraceElement(
+            "com.example.app.ui.MainActivity$1", "onClick", "MainActivity.java", 42);
+
+
+    @Setup
+    public void setup() {
+        Exception = nest(3, 20);
+    }
+
+    @Benchmark
+    public String serializeException() {
+        return Tools.serializeException(Exception);
+    }
+
+    @Benchmark
+    public long fingerprintException() {
+        return Tools.fingerprintException(Exception);
+    }
+
+    @Benchmark
+    public String getPackageNameFromStack() {
+        return Tools.getPackageNameFromStack(Element);
+    }
+
+    /**
+     * An exception with causes, each one thrown from frames deep.
+     */
+    private static Throwable nest(int causes, int depth) {
+        if (depth > 0) {
+            return nest(causes, depth - 1);
+        }
+
+        Throwable cause = causes > 1 ? nest(causes - 1, 20) : null;
+        return new IllegalStateException("failed at level " + causes, cause);
+    }
+}
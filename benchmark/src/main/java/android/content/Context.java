@@ -0,0 +1,13 @@
+package android.content;
+
+import android.content.pm.PackageManager;
+
+/**
+ * Shadow of android Context for benchmarks.
+ */
+public abstract class Context {
+
+    public abstract PackageManager getPackageManager();
+
+    public abstract String getPackageName();
+}
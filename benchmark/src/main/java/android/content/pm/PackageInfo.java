@@ -0,0 +1,11 @@
+package android.content.pm;
+
+/**
+ * Shadow of android PackageInfo for benchmarks.
+ */
+public class PackageInfo {
+
+    public String versionName;
+
+    public int versionCode;
+}
@@ -0,0 +1,15 @@
+package android.content.pm;
+
+/**
+ * Shadow of android PackageManager for benchmarks.
+ */
+public abstract class PackageManager {
+
+    public static final int GET_ACTIVITIES = 1;
+
+    public abstract PackageInfo getPackageInfo(String name, int flags)
+            throws NameNotFoundException;
+
+    public static class NameNotFoundException extends Exception {
+    }
+}
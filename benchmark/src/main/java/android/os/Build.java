@@ -0,0 +1,9 @@
+package android.os;
+
+/**
+ * Shadow of android Build for benchmarks.
+ */
+public class Build {
+
+    public static final String MODEL = "benchmark";
+}
@@ -0,0 +1,23 @@
+package android.os;
+
+import java.io.File;
+
+/**
+ * Shadow of android Environment for benchmarks, storage is the temporary directory.
+ */
+public class Environment {
+
+    public static final String MEDIA_MOUNTED = "mounted";
+
+    public static String getExternalStorageState() {
+        return MEDIA_MOUNTED;
+    }
+
+    public static File getExternalStorageDirectory() {
+        return new File(System.getProperty("java.io.tmpdir"));
+    }
+
+    public static File getDataDirectory() {
+        return new File(System.getProperty("java.io.tmpdir"));
+    }
+}
@@ -0,0 +1,27 @@
+package android.os;
+
+/**
+ * Shadow of android FileObserver for benchmarks, nothing is watched.
+ */
+public abstract class FileObserver {
+
+    public static final int MODIFY = 2;
+    public static final int CLOSE_WRITE = 8;
+    public static final int MOVED_TO = 128;
+    public static final int CREATE = 256;
+    public static final int DELETE = 512;
+
+    public FileObserver(String path) {
+    }
+
+    public FileObserver(String path, int mask) {
+    }
+
+    public abstract void onEvent(int event, String path);
+
+    public void startWatching() {
+    }
+
+    public void stopWatching() {
+    }
+}
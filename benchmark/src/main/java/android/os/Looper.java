@@ -0,0 +1,15 @@
+package android.os;
+
+/**
+ * Shadow of android Looper for benchmarks, there is no main looper.
+ */
+public final class Looper {
+
+    public static Looper getMainLooper() {
+        return null;
+    }
+
+    public Thread getThread() {
+        return null;
+    }
+}
@@ -0,0 +1,29 @@
+package android.os;
+
+/**
+ * Shadow of android Process for benchmarks.
+ */
+public class Process {
+
+    public static final int THREAD_PRIORITY_DEFAULT = 0;
+    public static final int THREAD_PRIORITY_LESS_FAVORABLE = 1;
+    public static final int THREAD_PRIORITY_BACKGROUND = 10;
+    public static final int THREAD_PRIORITY_LOWEST = 19;
+
+    public static int myPid() {
+        return 4242;
+    }
+
+    public static int myTid() {
+        return (int) Thread.currentThread().getId();
+    }
+
+    public static void killProcess(int pid) {
+    }
+
+    public static void setThreadPriority(int priority) {
+    }
+
+    public static void setThreadPriority(int tid, int priority) {
+    }
+}
@@ -0,0 +1,29 @@
+package android.util;
+
+/**
+ * Shadow of android Log for benchmarks, logs go nowhere.
+ */
+public final class Log {
+
+    public static final int VERBOSE = 2;
+    public static final int DEBUG = 3;
+    public static final int INFO = 4;
+    public static final int WARN = 5;
+    public static final int ERROR = 6;
+    public static final int ASSERT = 7;
+
+    private Log() {
+    }
+
+    public static int println(int priority, String tag, String msg) {
+        return msg.length();
+    }
+
+    public static int e(String tag, String msg, Throwable tr) {
+        return msg.length();
+    }
+
+    public static int wtf(String tag, String msg) {
+        return msg.length();
+    }
+}
@@ -0,0 +1,271 @@
+package woods.log.compiler;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * A strict reader of the JSON object in {@code @Pin}, values are strings,
+ * numbers, booleans, nulls or arrays of them. Objects are not nested in a spec.
+ */
+
+final class PinParser {
+
+    private final String Json;
+
+    private int Position = 0;
+
+
+    private PinParser(String json) {
+        Json = json;
+    }
+
+    /**
+     * Read names and values of the object, in order they appear.
+     *
+     * @param json JSON object
+     * @return values by name, numbers are kept as their literals
+     * @throws IllegalArgumentException if the JSON is malformed
+     */
+    static Map<String, Object> parse(String json) {
+        PinParser parser = new PinParser(json);
+
+        Map<String, Object> object = parser.readObject();
+        parser.skipSpaces();
+        if (parser.Position < json.length()) {
+            throw parser.error("Unexpected content after object");
+        }
+
+        return object;
+    }
+
+    private Map<String, Object> readObject() {
+        Map<String, Object> object = new LinkedHashMap<>();
+
+        expect('{');
+        skipSpaces();
+        if (peek() == '}') {
+            Position++;
+            return object;
+        }
+
+        while (true) {
+            skipSpaces();
+            int start = Position;
+            String name = readString();
+            if (object.containsKey(name)) {
+                Position = start;
+                throw error("Duplicate name \"" + name + "\"");
+            }
+
+            skipSpaces();
+            expect(':');
+            object.put(name, readValue());
+
+            skipSpaces();
+            char c = next();
+            if (c == '}') {
+                return object;
+            } else if (c != ',') {
+                Position--;
+                throw error("Expected ',' or '}'");
+            }
+        }
+    }
+
+    private Object readValue() {
+        skipSpaces();
+        char c = peek();
+
+        switch (c) {
+            case '"':
+                return readString();
+
+            case '[':
+                return readArray();
+
+            case 't':
+                readWord("true");
+                return Boolean.TRUE;
+
+            case 'f':
+                readWord("false");
+                return Boolean.FALSE;
+
+            case 'n':
+                readWord("null");
+                return null;
+
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    return readNumber();
+                }
+                throw error("Unexpected character '" + c + "'");
+        }
+    }
+
+    private List<Object> readArray() {
+        List<Object> array = new ArrayList<>();
+
+        expect('[');
+        skipSpaces();
+        if (peek() == ']') {
+            Position++;
+            return array;
+        }
+
+        while (true) {
+            array.add(readValue());
+
+            skipSpaces();
+            char c = next();
+            if (c == ']') {
+                return array;
+            } else if (c != ',') {
+                Position--;
+                throw error("Expected ',' or ']'");
+            }
+        }
+    }
+
+    private String readString() {
+        expect('"');
+
+        StringBuilder sb = new StringBuilder();
+        while (true) {
+            char c = next();
+            if (c == '"') {
+                return sb.toString();
+            } else if (c == '\\') {
+                char e = next();
+                switch (e) {
+                    case '"':
+                    case '\\':
+                    case '/':
+                        sb.append(e);
+                        break;
+                    case 'b':
+                        sb.append('\b');
+                        break;
+                    case 'f':
+                        sb.append('\f');
+                        break;
+                    case 'n':
+                        sb.append('\n');
+                        break;
+                    case 'r':
+                        sb.append('\r');
+                        break;
+                    case 't':
+                        sb.append('\t');
+                        break;
+                    case 'u':
+                        if (Position + 4 > Json.length()) {
+                            throw error("Unterminated escape sequence");
+                        }
+                        try {
+                            sb.append((char) Integer.parseInt(
+                                    Json.substring(Position, Position + 4), 16));
+                        } catch (NumberFormatException ex) {
+                            throw error("Invalid escape sequence");
+                        }
+                        Position += 4;
+                        break;
+                    default:
+                        Position--;
+                        throw error("Invalid escape sequence");
+                }
+            } else if (c < ' ') {
+                Position--;
+                throw error("Control character in string");
+            } else {
+                sb.append(c);
+            }
+        }
+    }
+
+    private String readNumber() {
+        int start = Position;
+
+        if (peek() == '-') {
+            Position++;
+        }
+        int digits = skipDigits();
+        if (digits == 0) {
+            throw error("Invalid number");
+        }
+        if (Position < Json.length() && Json.charAt(Position) == '.') {
+            Position++;
+            if (skipDigits() == 0) {
+                throw error("Invalid number");
+            }
+        }
+        if (Position < Json.length() && (Json.charAt(Position) == 'e' ||
+                Json.charAt(Position) == 'E')) {
+            Position++;
+            if (Position < Json.length() && (Json.charAt(Position) == '+' ||
+                    Json.charAt(Position) == '-')) {
+                Position++;
+            }
+            if (skipDigits() == 0) {
+                throw error("Invalid number");
+            }
+        }
+
+        return Json.substring(start, Position);
+    }
+
+    private int skipDigits() {
+        int start = Position;
+        while (Position < Json.length() && Json.charAt(Position) >= '0' &&
+                Json.charAt(Position) <= '9') {
+            Position++;
+        }
+        return Position - start;
+    }
+
+    private void readWord(String word) {
+        if (!Json.startsWith(word, Position)) {
+            throw error("Unexpected literal");
+        }
+        Position += word.length();
+    }
+
+    private void skipSpaces() {
+        while (Position < Json.length()) {
+            char c = Json.charAt(Position);
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                return;
+            }
+            Position++;
+        }
+    }
+
+    private void expect(char expected) {
+        skipSpaces();
+        char c = next();
+        if (c != expected) {
+            Position--;
+            throw error("Expected '" + expected + "'");
+        }
+    }
+
+    private char peek() {
+        if (Position >= Json.length()) {
+            throw error("Unexpected end of JSON");
+        }
+        return Json.charAt(Position);
+    }
+
+    private char next() {
+        char c = peek();
+        Position++;
+        return c;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at column " + (Position + 1) + ".");
+    }
+}
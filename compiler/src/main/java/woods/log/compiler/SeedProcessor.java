@@ -0,0 +1,480 @@
+package woods.log.compiler;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+
+/**
+ * Grows seeds at build time. For each type with methods annotated by {@code @Pin}, a class
+ * named after it with suffix "_Forest" is generated, whose {@code trees()} creates the trees
+ * returned by the methods and pins them with specs built from the JSON:
+ * <pre>
+ *     Timber.builder()
+ *             .addTrees(Seed_Forest.trees())
+ *             .build();
+ * </pre>
+ * Malformed JSON, unknown fields and trees that could not be instanced fail the build,
+ * no reflection or JSON parsing is left to startup.
+ */
+
+public final class SeedProcessor extends AbstractProcessor {
+
+    static final String PIN = "woods.log.timber.Pin";
+
+    static final String TREE = "woods.log.timber.Tree";
+
+    static final String SUFFIX = "_Forest";
+
+    private static final List<String> LEVELS =
+            Arrays.asList("ALL", "V", "D", "I", "W", "E", "A", "S");
+
+    private Messager Messager;
+
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(PIN);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment env) {
+        TypeElement pin = processingEnv.getElementUtils().getTypeElement(PIN);
+        if (pin == null) {
+            return false;
+        }
+
+        Messager = processingEnv.getMessager();
+
+        Set<TypeElement> seeds = new LinkedHashSet<>();
+        for (Element element : env.getElementsAnnotatedWith(pin)) {
+            if (element.getKind() == ElementKind.METHOD) {
+                seeds.add((TypeElement) element.getEnclosingElement());
+            }
+        }
+
+        for (TypeElement seed : seeds) {
+            try {
+                grow(seed);
+            } catch (IOException e) {
+                Messager.printMessage(Diagnostic.Kind.ERROR,
+                        "Could not generate forest: " + e.getMessage(), seed);
+            }
+        }
+
+        return true;
+    }
+
+    private void grow(TypeElement seed) throws IOException {
+        String pack = packageOf(seed);
+        String forest = forestName(seed);
+
+        List<String> names = new ArrayList<>();
+        StringBuilder body = new StringBuilder();
+        boolean valid = true;
+
+        for (ExecutableElement method : ElementFilter.methodsIn(seed.getEnclosedElements())) {
+            AnnotationMirror mirror = pinOf(method);
+            if (mirror == null) {
+                continue;
+            }
+
+            String tree = treeOf(method);
+            String spec = specOf(method, mirror);
+            if (tree == null || spec == null) {
+                valid = false;
+                continue;
+            }
+
+            String name = method.getSimpleName().toString();
+            names.add(name);
+
+            body.append("        ").append(tree).append(' ').append(name)
+                    .append(" = new ").append(tree).append("();\n");
+            if (!spec.isEmpty()) {
+                body.append("        ").append(name).append(".pin(new SpecBuilder()")
+                        .append(spec).append("\n                .build());\n");
+            }
+            body.append('\n');
+        }
+
+        if (!valid) {
+            return;
+        }
+
+        StringBuilder source = new StringBuilder();
+        source.append("// Generated by SeedProcessor from ")
+                .append(seed.getQualifiedName()).append(", do not edit.\n");
+        if (!pack.isEmpty()) {
+            source.append("package ").append(pack).append(";\n\n");
+        }
+        source.append("import woods.log.timber.Level;\n")
+                .append("import woods.log.timber.SpecBuilder;\n")
+                .append("import woods.log.timber.Tree;\n\n\n")
+                .append("/**\n")
+                .append(" * Trees grown from {@link ").append(seed.getQualifiedName())
+                .append("}.\n")
+                .append(" */\n")
+                .append("@SuppressWarnings(\"unused\")\n")
+                .append("public final class ").append(forest).append(" {\n\n")
+                .append("    private ").append(forest).append("() {\n")
+                .append("    }\n\n")
+                .append("    /**\n")
+                .append("     * Create the trees, pinned with their specs.\n")
+                .append("     */\n")
+                .append("    public static Tree[] trees() {\n")
+                .append(body)
+                .append("        return new Tree[]{");
+        for (int i = 0; i < names.size(); i++) {
+            source.append(i == 0 ? "" : ", ").append(names.get(i));
+        }
+        source.append("};\n")
+                .append("    }\n")
+                .append("}\n");
+
+        String file = pack.isEmpty() ? forest : pack + "." + forest;
+        JavaFileObject object = processingEnv.getFiler().createSourceFile(file, seed);
+        Writer writer = object.openWriter();
+        try {
+            writer.write(source.toString());
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Get the qualified name of the tree a method returns, null if it can not be instanced.
+     */
+    private String treeOf(ExecutableElement method) {
+        if (!method.getParameters().isEmpty()) {
+            Messager.printMessage(Diagnostic.Kind.ERROR,
+                    "Seed method should take no parameters.", method);
+            return null;
+        }
+
+        TypeMirror type = method.getReturnType();
+        if (type.getKind() != TypeKind.DECLARED) {
+            Messager.printMessage(Diagnostic.Kind.ERROR,
+                    type + " type can not be instanced.", method);
+            return null;
+        }
+
+        TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+        TypeElement tree = processingEnv.getElementUtils().getTypeElement(TREE);
+
+        if (element.getKind() != ElementKind.CLASS ||
+                element.getModifiers().contains(Modifier.ABSTRACT) ||
+                (tree != null && !processingEnv.getTypeUtils().isAssignable(
+                        processingEnv.getTypeUtils().erasure(type),
+                        processingEnv.getTypeUtils().erasure(tree.asType())))) {
+            Messager.printMessage(Diagnostic.Kind.ERROR,
+                    element.getQualifiedName() + " type can not be instanced.", method);
+            return null;
+        }
+
+        if (!element.getModifiers().contains(Modifier.PUBLIC)) {
+            Messager.printMessage(Diagnostic.Kind.ERROR,
+                    "Could not load class: " + element.getQualifiedName(), method);
+            return null;
+        }
+
+        boolean constructed = false;
+        for (ExecutableElement constructor :
+                ElementFilter.constructorsIn(element.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() &&
+                    constructor.getModifiers().contains(Modifier.PUBLIC)) {
+                constructed = true;
+            }
+        }
+
+        if (!constructed) {
+            Messager.printMessage(Diagnostic.Kind.ERROR,
+                    element.getQualifiedName() + " missing default constructor?", method);
+            return null;
+        }
+
+        return element.getQualifiedName().toString();
+    }
+
+    /**
+     * Translate the JSON of pin into calls of SpecBuilder, null if it is not a valid spec.
+     */
+    private String specOf(ExecutableElement method, AnnotationMirror pin) {
+        String json = "";
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+                pin.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals("value")) {
+                json = String.valueOf(entry.getValue().getValue());
+            }
+        }
+
+        if (json.trim().isEmpty()) {
+            return "";
+        }
+
+        Map<String, Object> fields;
+        try {
+            fields = PinParser.parse(json);
+        } catch (IllegalArgumentException e) {
+            error(method, pin, "Malformed spec, " + e.getMessage());
+            return null;
+        }
+
+        StringBuilder calls = new StringBuilder();
+        for (Map.Entry<String, Object> field : fields.entrySet()) {
+            String name = field.getKey();
+            Object value = field.getValue();
+
+            if (value == null) {
+                continue;
+            }
+
+            String call;
+            switch (name) {
+                case "Filters":
+                    call = levelsOf(method, pin, name, value);
+                    if (call != null) {
+                        call = ".filters(" + call + ")";
+                    }
+                    break;
+
+                case "Metrics":
+                    call = stringsOf(method, pin, name, value);
+                    if (call != null) {
+                        call = ".metrics(" + call + ")";
+                    }
+                    break;
+
+                case "Level":
+                case "Trigger":
+                    call = levelOf(method, pin, name, value);
+                    if (call != null) {
+                        call = "." + name.toLowerCase() + "(" + call + ")";
+                    }
+                    break;
+
+                case "Thread":
+                case "Class":
+                case "Method":
+                    if (!(value instanceof String)) {
+                        error(method, pin, name + " should be a string.");
+                        return null;
+                    }
+                    call = "." + (name.equals("Class") ? "clazz" : name.toLowerCase()) +
+                            "(" + literal((String) value) + ")";
+                    break;
+
+                case "Before":
+                case "After":
+                case "Interval":
+                case "Coalesce":
+                    call = numberOf(method, pin, name, value, Long.MAX_VALUE);
+                    if (call != null) {
+                        call = "." + name.toLowerCase() + "(" + call + "L)";
+                    }
+                    break;
+
+                case "Buffer":
+                case "Rate":
+                case "Burst":
+                case "Sample":
+                case "First":
+                    call = numberOf(method, pin, name, value, Integer.MAX_VALUE);
+                    if (call != null) {
+                        call = "." + name.toLowerCase() + "(" + call + ")";
+                    }
+                    break;
+
+                case "Watch":
+                case "PerTag":
+                case "Json":
+                    if (!(value instanceof Boolean)) {
+                        error(method, pin, name + " should be true or false.");
+                        return null;
+                    }
+                    call = "." + Character.toLowerCase(name.charAt(0)) + name.substring(1) +
+                            "(" + value + ")";
+                    break;
+
+                default:
+                    error(method, pin, "Unknown field \"" + name + "\" in spec.");
+                    return null;
+            }
+
+            if (call == null) {
+                return null;
+            }
+
+            calls.append("\n                ").append(call);
+        }
+
+        return calls.toString();
+    }
+
+    private String levelsOf(ExecutableElement method, AnnotationMirror pin, String name,
+                            Object value) {
+        if (!(value instanceof List)) {
+            error(method, pin, name + " should be an array of levels.");
+            return null;
+        }
+
+        StringBuilder levels = new StringBuilder();
+        for (Object item : (List<?>) value) {
+            String level = levelOf(method, pin, name, item);
+            if (level == null) {
+                return null;
+            }
+            levels.append(levels.length() == 0 ? "" : ", ").append(level);
+        }
+
+        return levels.toString();
+    }
+
+    private String stringsOf(ExecutableElement method, AnnotationMirror pin, String name,
+                             Object value) {
+        if (!(value instanceof List)) {
+            error(method, pin, name + " should be an array of strings.");
+            return null;
+        }
+
+        StringBuilder strings = new StringBuilder();
+        for (Object item : (List<?>) value) {
+            if (!(item instanceof String)) {
+                error(method, pin, name + " should be an array of strings.");
+                return null;
+            }
+            strings.append(strings.length() == 0 ? "" : ", ").append(literal((String) item));
+        }
+
+        return strings.toString();
+    }
+
+    private String levelOf(ExecutableElement method, AnnotationMirror pin, String name,
+                           Object value) {
+        if (!(value instanceof String) || !LEVELS.contains(value)) {
+            error(method, pin, "Unknown level " + value + " of " + name + ", one of " +
+                    LEVELS + " expected.");
+            return null;
+        }
+
+        return "Level." + value;
+    }
+
+    private String numberOf(ExecutableElement method, AnnotationMirror pin, String name,
+                            Object value, long max) {
+        if (value instanceof String) {
+            try {
+                long number = Long.parseLong((String) value);
+                if (number >= 0 && number <= max) {
+                    return Long.toString(number);
+                }
+            } catch (NumberFormatException e) {
+                // Not an integer, reported below
+            }
+        }
+
+        error(method, pin, name + " should be an integer between 0 and " + max + ".");
+        return null;
+    }
+
+    private void error(ExecutableElement method, AnnotationMirror pin, String message) {
+        Messager.printMessage(Diagnostic.Kind.ERROR, message, method, pin);
+    }
+
+    private AnnotationMirror pinOf(ExecutableElement method) {
+        for (AnnotationMirror mirror : method.getAnnotationMirrors()) {
+            TypeElement type = (TypeElement) mirror.getAnnotationType().asElement();
+            if (type.getQualifiedName().contentEquals(PIN)) {
+                return mirror;
+            }
+        }
+
+        return null;
+    }
+
+    private static String packageOf(TypeElement type) {
+        Element element = type;
+        while (!(element instanceof PackageElement)) {
+            element = element.getEnclosingElement();
+        }
+
+        return ((PackageElement) element).getQualifiedName().toString();
+    }
+
+    /**
+     * Name of the forest, enclosing types are joined with '_'.
+     */
+    private static String forestName(TypeElement type) {
+        String name = type.getSimpleName().toString();
+
+        Element element = type.getEnclosingElement();
+        while (element instanceof TypeElement) {
+            name = element.getSimpleName() + "_" + name;
+            element = element.getEnclosingElement();
+        }
+
+        return name + SUFFIX;
+    }
+
+    private static String literal(String value) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < ' ' || c > '~') {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,336 @@
+package woods.log.timber;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * A bulkhead isolates a {@link Sink} from the forest: logging calls only put events into a
+ * bounded queue, a worker of the sink's own hands them over in batch.
+ * A sink that takes longer than the budget is bypassed for a while, logs to it are dropped.
+ * Assertions are still handed over on the calling thread, and so are rules of the sink checked.
+ */
+final class Bulkhead extends Sink {
+
+    private final static int BATCH_SIZE = 64;
+
+    /**
+     * How long is a stalled sink bypassed, in times of budget
+     */
+    private final static int BYPASS_FACTOR = 10;
+
+    /**
+     * Milliseconds queued events are handed over for on uproot or crash
+     */
+    private final static long DRAIN_TIMEOUT = 1200;
+
+    final Sink Sink;
+
+    private final Overflow Overflow;
+
+    private final long Budget;
+
+    private final Event[] Queue;
+
+    private int Head = 0;
+
+    private int Count = 0;
+
+    private final Event[] Batch = new Event[BATCH_SIZE];
+
+    /**
+     * Start time of the batch the sink is working on, 0 if idle
+     */
+    private volatile long BusySince = 0;
+
+    private volatile long BypassUntil = 0;
+
+    private final AtomicLong Dropped = new AtomicLong(0);
+
+    private volatile boolean Draining = false;
+
+    private volatile boolean Uprooted = false;
+
+    private Thread Worker = null;
+
+
+    /**
+     * @param sink     sink to isolate
+     * @param capacity events could be queued
+     * @param overflow what to do when queue is full
+     * @param budget   milliseconds a batch may take before the sink is bypassed, 0 for no limit
+     */
+    Bulkhead(@NonNull Sink sink, int capacity, @NonNull Overflow overflow, long budget) {
+        if (capacity <= 0) {
+            throw new AssertionError("Capacity of bulkhead should be positive: " + capacity);
+        }
+
+        Sink = sink;
+        Sink.Front = this;
+        Overflow = overflow;
+        Budget = budget;
+
+        Queue = new Event[capacity];
+        for (int i = 0; i < capacity; i++) {
+            Queue[i] = new Event();
+        }
+
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            Batch[i] = new Event();
+        }
+    }
+
+    @Override
+    public void plant() {
+        Uprooted = false;
+        Sink.plant();
+
+        Worker = new Thread("Timber-Bulkhead-" + Sink.getClass().getSimpleName()) {
+            @Override
+            public void run() {
+                work();
+            }
+        };
+        Worker.setDaemon(true);
+        Worker.start();
+    }
+
+    /**
+     * Events queued are handed over to the sink before it is uprooted, logging calls waiting
+     * for room give up.
+     */
+    @Override
+    public void uproot() {
+        synchronized (this) {
+            Uprooted = true;
+            notifyAll();
+        }
+
+        if (Worker != null) {
+            awaitDrained(System.currentTimeMillis() + DRAIN_TIMEOUT);
+            Worker.interrupt();
+            Worker = null;
+        }
+
+        synchronized (this) {
+            Dropped.addAndGet(Count);
+            Count = 0;
+            notifyAll();
+        }
+
+        Sink.uproot();
+    }
+
+    @Override
+    public void pin(@NonNull Spec spec) {
+        Sink.pin(spec);
+    }
+
+    /**
+     * Wait until queued events handed over, then until the sink flushed.
+     */
+    @Override
+    public boolean flush(long timeout) {
+        long deadline = System.currentTimeMillis() + timeout;
+
+        return awaitDrained(deadline)
+                && Sink.flush(Math.max(0, deadline - System.currentTimeMillis()));
+    }
+
+    /**
+     * Wait until queued events handed over to the sink.
+     *
+     * @param deadline time to give up waiting
+     * @return true if queue is drained before deadline
+     */
+    private synchronized boolean awaitDrained(long deadline) {
+        while (Count > 0 || Draining) {
+            long left = deadline - System.currentTimeMillis();
+            if (left <= 0) {
+                return false;
+            }
+
+            try {
+                wait(left);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean isLoggable(@NonNull Level level, String tag) {
+        if (BypassUntil != 0 || BusySince != 0) {
+            long now = System.currentTimeMillis();
+
+            long since = BusySince;
+            if (Budget > 0 && since != 0 && now - since > Budget) {
+                BypassUntil = now + Budget * BYPASS_FACTOR;
+            }
+
+            if (now < BypassUntil) {
+                Dropped.incrementAndGet();
+                return false;
+            }
+
+            BypassUntil = 0;
+        }
+
+        return Sink.isLoggable(level, tag);
+    }
+
+    /**
+     * Rules of the sink are checked before the event is queued, not on the worker.
+     */
+    @Override
+    boolean admit(@NonNull Event event) {
+        return Sink.admit(event);
+    }
+
+    /**
+     * Put event into queue, the calling thread pays nothing more.
+     */
+    @Override
+    public void log(@NonNull Event event) {
+        if (event.how == Level.A) {
+            Sink.log(event);
+            return;
+        }
+
+        synchronized (this) {
+            if (Uprooted) {
+                Dropped.incrementAndGet();
+                return;
+            }
+
+            if (Count == Queue.length) {
+                switch (Overflow) {
+                    case DROP_NEWEST:
+                        Dropped.incrementAndGet();
+                        return;
+
+                    case DROP_OLDEST:
+                        Head = (Head + 1) % Queue.length;
+                        Count--;
+                        Dropped.incrementAndGet();
+                        break;
+
+                    default:
+                        while (Count == Queue.length && !Uprooted) {
+                            try {
+                                wait();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                Dropped.incrementAndGet();
+                                return;
+                            }
+                        }
+
+                        if (Uprooted) {
+                            Dropped.incrementAndGet();
+                            return;
+                        }
+                        break;
+                }
+            }
+
+            Queue[(Head + Count) % Queue.length].set(event);
+            Count++;
+
+            notifyAll();
+        }
+    }
+
+    /**
+     * Events dropped due to overflow or bypass.
+     */
+    long dropped() {
+        return Dropped.get();
+    }
+
+    /**
+     * Gauges of the sink isolated, with events queued and dropped by the bulkhead.
+     */
+    @Override
+    void measure(@NonNull Stats.Branch branch) {
+        Sink.measure(branch);
+
+        long dropped = dropped();
+        branch.dropped = branch.dropped > 0 ? branch.dropped + dropped : dropped;
+        branch.queued = depth();
+    }
+
+    /**
+     * Events queued, like the one of the crash, are handed over before the sink is told.
+     */
+    @Override
+    void crash() {
+        awaitDrained(System.currentTimeMillis() + DRAIN_TIMEOUT);
+        Sink.crash();
+    }
+
+    @Override
+    int pressure() {
+        return Math.max(depth() * 100 / Queue.length, Sink.pressure());
+    }
+
+    @Override
+    String name() {
+        return Sink.name() + " (isolated)";
+    }
+
+    /**
+     * Events waiting in queue.
+     */
+    synchronized int depth() {
+        return Count;
+    }
+
+    private void work() {
+        while (!Thread.currentThread().isInterrupted()) {
+            int n;
+
+            synchronized (this) {
+                while (Count == 0) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+
+                n = Math.min(Count, BATCH_SIZE);
+                for (int i = 0; i < n; i++) {
+                    Batch[i].set(Queue[Head]);
+                    Head = (Head + 1) % Queue.length;
+                }
+                Count -= n;
+                Draining = true;
+
+                notifyAll();
+            }
+
+            BusySince = System.currentTimeMillis();
+            try {
+                Sink.log(Batch, n);
+            } catch (RuntimeException e) {
+                // A broken sink should not take the worker down
+            } finally {
+                long elapsed = System.currentTimeMillis() - BusySince;
+                if (Budget > 0 && elapsed > Budget) {
+                    BypassUntil = System.currentTimeMillis() + Budget * BYPASS_FACTOR;
+                }
+                BusySince = 0;
+
+                synchronized (this) {
+                    Draining = false;
+                    notifyAll();
+                }
+            }
+        }
+    }
+}
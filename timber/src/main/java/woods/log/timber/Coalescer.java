@@ -0,0 +1,207 @@
+package woods.log.timber;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+
+/**
+ * Coalesces repeated messages of a call site. The first of a run is let go, the repeats within
+ * the window are counted, and a single line tells how many times it repeated when the run ends
+ * or the window expires. Messages are told apart by hash, and compared in full only when hashes
+ * match.
+ */
+final class Coalescer {
+
+    /**
+     * Format of the line ending a run, such lines are told by it
+     */
+    static final String REPEATED = "Last message repeated %d times.";
+
+    /**
+     * Call sites tracked at most, logs of call sites beyond are let go
+     */
+    private static final int MAX_KEYS = 1024;
+
+    private final Sink Sink;
+
+    private final long Window;
+
+    private final ConcurrentHashMap<Milieu.CallSite, Run> Runs = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean Sweeping = new AtomicBoolean(false);
+
+    private volatile boolean Retired = false;
+
+    private final Runnable Sweep = new Runnable() {
+        @Override
+        public void run() {
+            end(System.currentTimeMillis() - Window);
+
+            if (!Retired) {
+                Sawmill.schedule(this, Window);
+            }
+        }
+    };
+
+
+    private Coalescer(long window, @NonNull Sink sink) {
+        Window = window;
+        Sink = sink;
+    }
+
+    /**
+     * Create coalescer of the spec for the sink.
+     *
+     * @return null if messages are not coalesced by the spec
+     */
+    static Coalescer of(Spec spec, @NonNull Sink sink) {
+        if (spec == null || spec.Coalesce <= 0) {
+            return null;
+        }
+
+        return new Coalescer(spec.Coalesce, sink);
+    }
+
+    /**
+     * Whether the event should be logged, it is counted if it repeats the last message.
+     * A run ended by the event is told before the event.
+     */
+    boolean admit(@NonNull Event event) {
+        if (event.site == null || event.how == Level.A) {
+            return true;
+        }
+
+        Run run = Runs.get(event.site);
+        if (run == null) {
+            if (Runs.size() >= MAX_KEYS) {
+                return true;
+            }
+
+            run = new Run();
+            Run prior = Runs.putIfAbsent(event.site, run);
+            if (prior != null) {
+                run = prior;
+            } else if (Sweeping.compareAndSet(false, true)) {
+                Sawmill.schedule(Sweep, Window);
+            }
+        }
+
+        String message = event.text();
+        long hash = ((long) message.hashCode() << 32) | (message.length() & 0xFFFFFFFFL);
+        if (event.why != null) {
+            hash ^= event.why.getClass().hashCode();
+        }
+
+        Event ended;
+        synchronized (run) {
+            if (run.Count >= 0 && run.Hash == hash && event.when - run.Since < Window
+                    && run.repeats(message, event.why)) {
+                run.Count++;
+                return false;
+            }
+
+            ended = run.end();
+
+            run.First.set(event);
+            run.Hash = hash;
+            run.Since = event.when;
+            run.Count = 0;
+        }
+
+        if (ended != null) {
+            Sink.Front.log(ended);
+        }
+
+        return true;
+    }
+
+    /**
+     * Stop sweeping, runs not ended yet are told.
+     */
+    void retire() {
+        Retired = true;
+
+        if (Sweeping.get()) {
+            Sawmill.execute(new Runnable() {
+                @Override
+                public void run() {
+                    end(Long.MAX_VALUE);
+                }
+            });
+        }
+    }
+
+    /**
+     * End runs started before the time, the next message of the call site is let go.
+     */
+    private void end(long before) {
+        for (Run run : Runs.values()) {
+            Event ended;
+            synchronized (run) {
+                if (run.Count < 0 || run.Since >= before) {
+                    continue;
+                }
+
+                ended = run.end();
+                run.Count = -1;
+            }
+
+            if (ended != null) {
+                Sink.Front.log(ended);
+            }
+        }
+    }
+
+    /**
+     * The latest run of a call site, guarded by itself.
+     */
+    private static final class Run {
+
+        /**
+         * First event of the run, copied
+         */
+        final Event First = new Event();
+
+        long Hash;
+
+        long Since;
+
+        /**
+         * Repeats counted, -1 if no run is going on
+         */
+        long Count = -1;
+
+        /**
+         * Whether the message and exception are the same as the first of the run.
+         */
+        boolean repeats(@NonNull String message, Throwable why) {
+            Throwable first = First.why;
+            if (why == null ? first != null : first == null || why.getClass() != first.getClass()) {
+                return false;
+            }
+
+            return message.equals(First.text());
+        }
+
+        /**
+         * Line telling the repeats of the run, null if it did not repeat.
+         */
+        Event end() {
+            if (Count <= 0) {
+                return null;
+            }
+
+            Event ended = new Event();
+            ended.set(First);
+            ended.when = System.currentTimeMillis();
+            ended.thread = Tools.getCurrentThreadName();
+            ended.tid = Tools.getCurrentThreadId();
+            ended.bind(First.how, null);
+            ended.bind(REPEATED, new Object[]{Count});
+
+            return ended;
+        }
+    }
+}
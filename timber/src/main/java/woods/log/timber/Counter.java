@@ -0,0 +1,45 @@
+package woods.log.timber;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * Counter striped by thread, so threads counting at once do not contend on a cache line.
+ */
+final class Counter {
+
+    private static final int STRIPES = 8;
+
+    /**
+     * Longs between stripes, a stripe takes a cache line of its own
+     */
+    private static final int PAD = 8;
+
+    private final AtomicLongArray Cells = new AtomicLongArray(STRIPES * PAD);
+
+
+    /**
+     * Count one on the stripe of the thread.
+     */
+    void add(long tid) {
+        Cells.incrementAndGet((int) (tid & (STRIPES - 1)) * PAD);
+    }
+
+    long sum() {
+        long sum = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            sum += Cells.get(i * PAD);
+        }
+
+        return sum;
+    }
+
+    long sumThenReset() {
+        long sum = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            sum += Cells.getAndSet(i * PAD, 0);
+        }
+
+        return sum;
+    }
+}
@@ -0,0 +1,135 @@
+package woods.log.timber;
+
+import android.support.annotation.NonNull;
+
+/**
+ * A logging event handed to {@link Sink}s, it is the milieu of the call with message.
+ * Message is formatted lazily, at most once for all sinks.
+ */
+public class Event extends Milieu {
+
+    /**
+     * Message or format string
+     */
+    public String format;
+
+    /**
+     * Format args
+     */
+    public Object[] args;
+
+    /**
+     * Key-values of a structured logging call, null if there is none
+     */
+    public Fields fields;
+
+    /**
+     * Logging context of the thread, shared by reference
+     */
+    public Scope scope = Scope.EMPTY;
+
+    /**
+     * Formatted message, null until required
+     */
+    private String message;
+
+    /**
+     * Key-values copied into the event, reused
+     */
+    private Fields kept;
+
+    /**
+     * Whether costs of the event are sampled into {@link Rings}
+     */
+    boolean timed;
+
+    /**
+     * Logging calls probed with the event, it is the milieu of a thread
+     */
+    int ticks;
+
+
+    public Event() {
+    }
+
+    /**
+     * Bind message of the logging call.
+     */
+    void bind(@NonNull String format, Object[] args) {
+        this.format = format;
+        this.args = args;
+        this.message = null;
+        this.fields = null;
+    }
+
+    /**
+     * Get the formatted message.
+     */
+    public String message() {
+        if (message == null) {
+            if (timed) {
+                long start = System.nanoTime();
+                message = Tools.format(format, args);
+                Rings.Format.record(System.nanoTime() - start);
+            } else {
+                message = Tools.format(format, args);
+            }
+        }
+
+        return message;
+    }
+
+    /**
+     * Get the formatted message with logging context and key-values as text.
+     */
+    public String text() {
+        boolean scoped = scope != null && scope.size() > 0;
+        boolean kv = fields != null && fields.size() > 0;
+        if (!scoped && !kv) {
+            return message();
+        }
+
+        StringBuilder sb = new StringBuilder(message());
+        if (scoped) {
+            scope.appendTo(sb);
+        }
+        if (kv) {
+            fields.appendTo(sb);
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Copy from another event, only references are copied except key-values. Copies are not
+     * timed, costs are sampled on the logging call only.
+     */
+    public void set(@NonNull Event e) {
+        who = e.who;
+        where = e.where;
+        what = e.what;
+        when = e.when;
+        why = e.why;
+        how = e.how;
+        thread = e.thread;
+        tid = e.tid;
+        pack = e.pack;
+        source = e.source;
+        site = e.site;
+        format = e.format;
+        args = e.args;
+        message = e.message;
+        scope = e.scope;
+        timed = false;
+
+        if (e.fields == null) {
+            fields = null;
+        } else {
+            if (kept == null) {
+                kept = new Fields();
+            }
+            kept.copy(e.fields);
+            fields = kept;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package woods.log.timber;
+
+import android.support.annotation.NonNull;
+
+import java.util.Arrays;
+
+
+/**
+ * Key-values of a structured event. Primitives are kept in arrays of their own, never boxed,
+ * and arrays are reused once grown.
+ */
+public final class Fields {
+
+    static final byte LONG = 1;
+    static final byte DOUBLE = 2;
+    static final byte BOOLEAN = 3;
+    static final byte OBJECT = 4;
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    String[] Keys = new String[INITIAL_CAPACITY];
+
+    byte[] Types = new byte[INITIAL_CAPACITY];
+
+    long[] Longs = new long[INITIAL_CAPACITY];
+
+    double[] Doubles = new double[INITIAL_CAPACITY];
+
+    Object[] Objects = new Object[INITIAL_CAPACITY];
+
+    int Size = 0;
+
+
+    Fields() {
+    }
+
+    public int size() {
+        return Size;
+    }
+
+    public String key(int i) {
+        return Keys[i];
+    }
+
+    public long longValue(int i) {
+        return Types[i] == DOUBLE ? (long) Doubles[i] : Longs[i];
+    }
+
+    public double doubleValue(int i) {
+        return Types[i] == DOUBLE ? Doubles[i] : Longs[i];
+    }
+
+    public boolean booleanValue(int i) {
+        return Types[i] == BOOLEAN && Longs[i] != 0;
+    }
+
+    /**
+     * Get value of the key, primitives are boxed.
+     */
+    public Object value(int i) {
+        switch (Types[i]) {
+            case LONG:
+                return Longs[i];
+            case DOUBLE:
+                return Doubles[i];
+            case BOOLEAN:
+                return Longs[i] != 0;
+            default:
+                return Objects[i];
+        }
+    }
+
+    /**
+     * Append key-values as text, like " user=42 path=\"/a b\"".
+     */
+    public StringBuilder appendTo(@NonNull StringBuilder sb) {
+        for (int i = 0; i < Size; i++) {
+            sb.append(' ').append(Keys[i]).append('=');
+
+            switch (Types[i]) {
+                case LONG:
+                    sb.append(Longs[i]);
+                    break;
+                case DOUBLE:
+                    sb.append(Doubles[i]);
+                    break;
+                case BOOLEAN:
+                    sb.append(Longs[i] != 0);
+                    break;
+                default:
+                    String text = String.valueOf(Objects[i]);
+                    if (text.indexOf(' ') < 0 && text.indexOf('"') < 0 && text.indexOf('=') < 0
+                            && !text.isEmpty()) {
+                        sb.append(text);
+                    } else {
+                        sb.append('"').append(text.replace("\"", "\\\"")).append('"');
+                    }
+                    break;
+            }
+        }
+
+        return sb;
+    }
+
+    void clear() {
+        Arrays.fill(Objects, 0, Size, null);
+        Size = 0;
+    }
+
+    /**
+     * Copy key-values from another, objects are copied by reference.
+     */
+    void copy(@NonNull Fields f) {
+        clear();
+        ensure(f.Size);
+
+        System.arraycopy(f.Keys, 0, Keys, 0, f.Size);
+        System.arraycopy(f.Types, 0, Types, 0, f.Size);
+        System.arraycopy(f.Longs, 0, Longs, 0, f.Size);
+        System.arraycopy(f.Doubles, 0, Doubles, 0, f.Size);
+        System.arraycopy(f.Objects, 0, Objects, 0, f.Size);
+        Size = f.Size;
+    }
+
+    void put(@NonNull String key, long value) {
+        int i = next(key, LONG);
+        Longs[i] = value;
+    }
+
+    void put(@NonNull String key, double value) {
+        int i = next(key, DOUBLE);
+        Doubles[i] = value;
+    }
+
+    void put(@NonNull String key, boolean value) {
+        int i = next(key, BOOLEAN);
+        Longs[i] = value ? 1 : 0;
+    }
+
+    void put(@NonNull String key, Object value) {
+        int i = next(key, OBJECT);
+        Objects[i] = value;
+    }
+
+    private int next(@NonNull String key, byte type) {
+        ensure(Size + 1);
+
+        int i = Size++;
+        Keys[i] = key;
+        Types[i] = type;
+        return i;
+    }
+
+    private void ensure(int capacity) {
+        if (capacity <= Keys.length) {
+            return;
+        }
+
+        int n = Math.max(capacity, Keys.length * 2);
+        Keys = Arrays.copyOf(Keys, n);
+        Types = Arrays.copyOf(Types, n);
+        Longs = Arrays.copyOf(Longs, n);
+        Doubles = Arrays.copyOf(Doubles, n);
+        Objects = Arrays.copyOf(Objects, n);
+    }
+}
@@ -0,0 +1,107 @@
+package woods.log.timber;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Exceptions seen by a tree, told apart by type and frames. The full trace of an exception is
+ * written the first time, later ones only refer to it by id. A table of ids and traces is
+ * written with each log file for lookup.
+ */
+final class Fingerprints {
+
+    /**
+     * Exceptions kept at most, exceptions beyond are written in full every time
+     */
+    private static final int MAX_FINGERPRINTS = 256;
+
+    private final ConcurrentHashMap<Long, Fingerprint> Prints = new ConcurrentHashMap<>();
+
+    private final AtomicInteger Ids = new AtomicInteger(0);
+
+
+    /**
+     * Describe the exception, in full if it is first seen or as a reference otherwise.
+     */
+    String describe(@NonNull Throwable t) {
+        long hash = Tools.fingerprintException(t);
+
+        Fingerprint print = Prints.get(hash);
+        if (print == null) {
+            String trace = Tools.serializeException(t);
+            if (Prints.size() >= MAX_FINGERPRINTS) {
+                return trace;
+            }
+
+            print = new Fingerprint(Ids.incrementAndGet(), trace);
+            Fingerprint prior = Prints.putIfAbsent(hash, print);
+            if (prior == null) {
+                return "exception #" + print.Id + "\n" + trace;
+            }
+
+            print = prior;
+        }
+
+        long seen = print.Seen.incrementAndGet();
+        return "exception #" + print.Id + " (seen " + seen + " times): " + t;
+    }
+
+    /**
+     * Table of exceptions seen so far in order of id, empty if there is none.
+     *
+     * @param json whether entries are written as JSON lines
+     */
+    String table(boolean json) {
+        if (Prints.isEmpty()) {
+            return "";
+        }
+
+        ArrayList<Fingerprint> prints = new ArrayList<>(Prints.values());
+        Collections.sort(prints, new Comparator<Fingerprint>() {
+            @Override
+            public int compare(Fingerprint a, Fingerprint b) {
+                return a.Id < b.Id ? -1 : (a.Id == b.Id ? 0 : 1);
+            }
+        });
+
+        if (json) {
+            StringBuilder sb = new StringBuilder();
+            for (Fingerprint print : prints) {
+                sb.append(JsonEncoder.exception(print.Id, print.Seen.get(), print.Trace))
+                        .append('\n');
+            }
+
+            return sb.toString();
+        }
+
+        StringBuilder sb = new StringBuilder("--------- exceptions\n");
+        for (Fingerprint print : prints) {
+            sb.append("exception #").append(print.Id)
+                    .append(" (seen ").append(print.Seen.get()).append(" times)\n")
+                    .append(print.Trace);
+        }
+
+        return sb.toString();
+    }
+
+    private static final class Fingerprint {
+
+        final int Id;
+
+        final String Trace;
+
+        final AtomicLong Seen = new AtomicLong(1);
+
+        Fingerprint(int id, @NonNull String trace) {
+            Id = id;
+            Trace = trace;
+        }
+    }
+}
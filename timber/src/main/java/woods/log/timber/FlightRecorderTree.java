@@ -0,0 +1,277 @@
+package woods.log.timber;
+
+import android.support.annotation.NonNull;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.Single;
+import io.reactivex.SingleObserver;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.Schedulers;
+
+
+/**
+ * A tree keeps the latest events of all levels in memory, and dump them into file on crash or
+ * on demand.
+ * Events are rendered into a preallocated ring of reusable slots on the logging call, so objects
+ * of the caller are never kept and args are told as they were. Nothing is written until the ring
+ * is dumped.
+ */
+public class FlightRecorderTree extends Sink {
+
+    private final static String BRIEFTIME = "MM-dd_HH-mm-ss";
+    private final static String ACCURATETIME = "MM-dd HH:mm:ss.SSS";
+
+    private final static int DEFAULT_CAPACITY = 1024;
+
+    private final static Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * Ring of slots, slot for the n-th event is Ring[n % Ring.length]
+     */
+    private final Slot[] Ring;
+
+    /**
+     * Sequence number of event in each slot
+     */
+    private final long[] Sequences;
+
+    /**
+     * Sequence number of next event
+     */
+    private final AtomicLong Cursor = new AtomicLong(0);
+
+    /**
+     * Directory the ring dumped into
+     */
+    private volatile String Store;
+
+    private Disposable Disposable = null;
+
+
+    public FlightRecorderTree() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public FlightRecorderTree(int capacity) {
+        this(null, capacity);
+    }
+
+    public FlightRecorderTree(String storedir, int capacity) {
+        if (capacity <= 0) {
+            throw new AssertionError("Capacity of flight recorder should be positive: " + capacity);
+        }
+
+        Ring = new Slot[capacity];
+        Sequences = new long[capacity];
+        for (int i = 0; i < capacity; i++) {
+            Ring[i] = new Slot();
+            Sequences[i] = -1;
+        }
+
+        Store = storedir;
+    }
+
+    /**
+     * Called when tree is added into forest.
+     */
+    @Override
+    public void plant() {
+        if (Store != null) {
+            return;
+        }
+
+        Single.just(android.os.Process.myPid())
+                .observeOn(Schedulers.from(Sawmill.executor()))
+                .map(new Function<Integer, String>() {
+                    @Override
+                    public String apply(Integer pid) throws Exception {
+                        return Tools.sitingStore(Tools.matchPackageName(pid));
+                    }
+                })
+                .subscribe(new SingleObserver<String>() {
+                    @Override
+                    public void onSubscribe(Disposable d) {
+                        Disposable = d;
+                    }
+
+                    @Override
+                    public void onSuccess(String storedir) {
+                        Store = storedir;
+                        Disposable = null;
+                    }
+
+                    @Override
+                    public void onError(Throwable e) {
+                        Disposable = null;
+                    }
+                });
+    }
+
+    /**
+     * Called when tree is removed from forest.
+     */
+    @Override
+    public void uproot() {
+        if (Disposable != null) {
+            if (!Disposable.isDisposed()) {
+                Disposable.dispose();
+            }
+        }
+    }
+
+    /**
+     * Flight recorder records every thing, specs are ignored.
+     */
+    @Override
+    public void pin(@NonNull Spec spec) {
+    }
+
+    /**
+     * Nothing is queued, events stay in memory until dumped.
+     */
+    @Override
+    public boolean flush(long timeout) {
+        return true;
+    }
+
+    /**
+     * Flight recorder records every thing.
+     */
+    @Override
+    public boolean isLoggable(@NonNull Level level, String tag) {
+        return true;
+    }
+
+    /**
+     * Render the event into the next slot, the message is formatted once for all sinks.
+     */
+    @Override
+    public void log(@NonNull Event event) {
+        String text = event.text();
+        String trace = event.why != null ? Tools.serializeException(event.why) : null;
+
+        long n = Cursor.getAndIncrement();
+        int i = (int) (n % Ring.length);
+
+        Slot slot = Ring[i];
+        synchronized (slot) {
+            Sequences[i] = n;
+            slot.When = event.when;
+            slot.Thread = event.thread;
+            slot.How = event.how;
+            slot.Tag = event.what != null ? event.what : event.who;
+            slot.Text = text;
+            slot.Source = event.source;
+            slot.Trace = trace;
+        }
+    }
+
+    /**
+     * The ring is dumped on crash.
+     */
+    @Override
+    void crash() {
+        dump();
+    }
+
+    /**
+     * Dump events in the ring into a new file in the log store, oldest first. Failure is told
+     * to logcat directly, the forest may be going down.
+     *
+     * @return the file written, or null if there is no where to dump or writing failed
+     */
+    public File dump() {
+        String storedir = Store;
+        if (storedir == null) {
+            return null;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        SimpleDateFormat tf = new SimpleDateFormat(ACCURATETIME, Locale.CHINA);
+
+        long end = Cursor.get();
+        long start = Math.max(0, end - Ring.length);
+        for (long n = start; n < end; n++) {
+            int i = (int) (n % Ring.length);
+
+            Slot slot = Ring[i];
+            synchronized (slot) {
+                if (Sequences[i] == n) {
+                    render(sb, tf, slot);
+                }
+            }
+        }
+
+        SimpleDateFormat df = new SimpleDateFormat(BRIEFTIME, Locale.CHINA);
+        File paper = new File(storedir, df.format(System.currentTimeMillis()) + "_Flight.log");
+
+        FileOutputStream fos = null;
+        try {
+            Tools.makeDirectory(storedir);
+
+            fos = new FileOutputStream(paper);
+            fos.write(sb.toString().getBytes(UTF8));
+            fos.getFD().sync();
+        } catch (IOException e) {
+            Log.e(FlightRecorderTree.class.getSimpleName(),
+                    "Fail dumping flight recorder: " + paper.getPath(), e);
+            return null;
+        } finally {
+            if (fos != null) {
+                try {
+                    fos.close();
+                } catch (IOException e) {
+                    // Nothing to do with it
+                }
+            }
+        }
+
+        return paper;
+    }
+
+    private void render(@NonNull StringBuilder sb, @NonNull SimpleDateFormat df,
+                        @NonNull Slot slot) {
+        sb.append(df.format(slot.When)).append(' ')
+                .append(slot.Thread).append(' ')
+                .append(slot.How.name()).append(' ')
+                .append(slot.Tag).append(": ")
+                .append(slot.Text).append(' ')
+                .append(slot.Source).append('\n');
+
+        if (slot.Trace != null) {
+            sb.append(slot.Trace).append('\n');
+        }
+    }
+
+    /**
+     * An event as rendered, guarded by itself.
+     */
+    private static final class Slot {
+
+        long When;
+
+        String Thread;
+
+        Level How;
+
+        String Tag;
+
+        String Text;
+
+        String Source;
+
+        /**
+         * Stack trace of the exception, null if there is none
+         */
+        String Trace;
+    }
+}
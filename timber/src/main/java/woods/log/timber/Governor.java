@@ -0,0 +1,175 @@
+package woods.log.timber;
+
+import android.support.annotation.NonNull;
+
+
+/**
+ * Sheds low levels under load. The logging rate and the fullest queue of sinks, including
+ * how far memo lags behind, are sampled on the sawmill. While either is over its threshold the
+ * floor level of the forest is raised a level a sample, up to {@link Level#W}. It is lowered
+ * a level at a time once both stay under half their thresholds for a second. Each change is
+ * logged with tag "Governor":
+ * <pre>
+ *     Logging floor raised to I, 5200 logs/s, 12% queued.
+ *     Logging floor lowered to D, 310 logs/s, 0% queued.
+ * </pre>
+ */
+final class Governor {
+
+    /**
+     * Tag of events on each change of floor
+     */
+    static final String TAG = "Governor";
+
+    /**
+     * Milliseconds between samples
+     */
+    private static final long PERIOD = 250;
+
+    /**
+     * Samples under half thresholds before floor is lowered
+     */
+    private static final int CALM_SAMPLES = 4;
+
+    /**
+     * Highest floor, warnings and above are never shed
+     */
+    private static final int MAX_FLOOR = Level.W.ordinal();
+
+    /**
+     * Logs per second the forest takes before shedding, 0 for no limit
+     */
+    private final int Rate;
+
+    /**
+     * Percent of the fullest queue before shedding, 0 for no limit
+     */
+    private final int Pressure;
+
+    private volatile boolean Retired = false;
+
+    private long LastEvents;
+
+    private long LastTime;
+
+    private int Calm = 0;
+
+    private final Runnable Sample = new Runnable() {
+        @Override
+        public void run() {
+            sample();
+
+            if (!Retired) {
+                Sawmill.schedule(this, PERIOD);
+            }
+        }
+    };
+
+
+    /**
+     * @param rate     logs per second the forest takes before shedding, 0 for no limit
+     * @param pressure percent of the fullest queue before shedding, 0 for no limit
+     */
+    Governor(int rate, int pressure) {
+        Rate = rate;
+        Pressure = pressure;
+    }
+
+    void start() {
+        LastEvents = events();
+        LastTime = System.nanoTime();
+        Sawmill.schedule(Sample, PERIOD);
+    }
+
+    /**
+     * Stop sampling, all levels are let go again.
+     */
+    synchronized void retire() {
+        Retired = true;
+
+        if (Timber.Floor != 0) {
+            Timber.Floor = 0;
+            announce(Level.I, 0, 0);
+        }
+    }
+
+    private synchronized void sample() {
+        if (Retired) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        long events = events();
+        long rate = now > LastTime ? (events - LastEvents) * 1000000000L / (now - LastTime) : 0;
+        int pressure = Timber.pressure();
+        LastEvents = events;
+        LastTime = now;
+
+        adjust(rate, pressure);
+    }
+
+    /**
+     * Raise or lower the floor of the forest by a sample of load.
+     *
+     * @param rate     logs per second since last sample
+     * @param pressure percent of the fullest queue
+     */
+    synchronized void adjust(long rate, int pressure) {
+        boolean over = (Rate > 0 && rate > Rate) || (Pressure > 0 && pressure > Pressure);
+        boolean calm = (Rate <= 0 || rate < Rate / 2)
+                && (Pressure <= 0 || pressure < Pressure / 2);
+
+        int floor = Timber.Floor;
+        if (over) {
+            Calm = 0;
+
+            if (floor < MAX_FLOOR) {
+                Timber.Floor = floor == 0 ? Level.D.ordinal() : floor + 1;
+                announce(Level.W, rate, pressure);
+            }
+        } else if (calm && floor != 0) {
+            if (++Calm >= CALM_SAMPLES) {
+                Calm = 0;
+                Timber.Floor = floor <= Level.D.ordinal() ? 0 : floor - 1;
+                announce(Level.I, rate, pressure);
+            }
+        } else {
+            Calm = 0;
+        }
+    }
+
+    /**
+     * Logging calls of all levels so far.
+     */
+    private static long events() {
+        long events = 0;
+        for (Counter counter : Rings.Events) {
+            events += counter.sum();
+        }
+
+        return events;
+    }
+
+    /**
+     * Log the change of floor, as an event of its own.
+     */
+    private void announce(@NonNull Level level, long rate, int pressure) {
+        int floor = Timber.Floor;
+
+        Event event = new Event();
+        event.who = Governor.class.getSimpleName();
+        event.where = "sample";
+        event.what = TAG;
+        event.pack = Governor.class.getPackage().getName();
+        event.source = "<Governor.java>";
+        event.when = System.currentTimeMillis();
+        event.thread = Tools.getCurrentThreadName();
+        event.tid = Tools.getCurrentThreadId();
+        event.bind(level, null);
+        event.bind("Logging floor %s to %s, %d logs/s, %d%% queued.", new Object[]{
+                level == Level.W ? "raised" : "lowered",
+                floor == 0 ? Level.V.name() : Level.values()[floor].name(), rate, pressure});
+
+        Timber.emit(event);
+    }
+}
@@ -0,0 +1,161 @@
+package woods.log.timber;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * Counts of values in log buckets, four buckets to each power of two, so a percentile is told
+ * within a quarter of its value. Recording is lock free and costs no allocation.
+ */
+public final class Histogram {
+
+    /**
+     * Sub buckets to each power of two, as bits
+     */
+    private static final int SUB_BITS = 2;
+
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+
+    private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_COUNT;
+
+    private final AtomicLongArray Buckets = new AtomicLongArray(BUCKETS);
+
+    private final AtomicLong Count = new AtomicLong(0);
+
+    private final AtomicLong Sum = new AtomicLong(0);
+
+    private final AtomicLong Max = new AtomicLong(0);
+
+
+    public Histogram() {
+    }
+
+    /**
+     * Record a value, negative values are taken as zero.
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+
+        Buckets.incrementAndGet(bucketOf(value));
+        Count.incrementAndGet();
+        Sum.addAndGet(value);
+
+        long max;
+        while (value > (max = Max.get())) {
+            if (Max.compareAndSet(max, value)) {
+                break;
+            }
+        }
+    }
+
+    public long count() {
+        return Count.get();
+    }
+
+    public long sum() {
+        return Sum.get();
+    }
+
+    public long max() {
+        return Max.get();
+    }
+
+    public double mean() {
+        long count = Count.get();
+        return count == 0 ? 0 : (double) Sum.get() / count;
+    }
+
+    /**
+     * Get the value at the quantile, like 0.99, as the upper bound of its bucket.
+     */
+    public long percentile(double quantile) {
+        long count = Count.get();
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(quantile * count);
+        if (rank < 1) {
+            rank = 1;
+        }
+
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += Buckets.get(i);
+            if (seen >= rank) {
+                return Math.min(upperOf(i), Max.get());
+            }
+        }
+
+        return Max.get();
+    }
+
+    /**
+     * Clear all counts.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            Buckets.set(i, 0);
+        }
+        Count.set(0);
+        Sum.set(0);
+        Max.set(0);
+    }
+
+    /**
+     * Add counts of another histogram into this one.
+     */
+    public void add(Histogram h) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long n = h.Buckets.get(i);
+            if (n != 0) {
+                Buckets.addAndGet(i, n);
+            }
+        }
+        Count.addAndGet(h.Count.get());
+        Sum.addAndGet(h.Sum.get());
+
+        long value = h.Max.get();
+        long max;
+        while (value > (max = Max.get())) {
+            if (Max.compareAndSet(max, value)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Summary like "count=120 mean=1.5 p50=1 p90=3 p99=7 max=9".
+     */
+    @Override
+    public String toString() {
+        return "count=" + count() + " mean=" + String.format("%.1f", mean())
+                + " p50=" + percentile(0.5) + " p90=" + percentile(0.9)
+                + " p99=" + percentile(0.99) + " max=" + max();
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_COUNT) {
+            return (int) value;
+        }
+
+        int exp = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exp - SUB_BITS)) & (SUB_COUNT - 1);
+        return (exp - SUB_BITS + 1) * SUB_COUNT + sub;
+    }
+
+    static long upperOf(int bucket) {
+        if (bucket < SUB_COUNT) {
+            return bucket;
+        }
+
+        int exp = bucket / SUB_COUNT + SUB_BITS - 1;
+        int sub = bucket % SUB_COUNT;
+        long lower = (long) (SUB_COUNT + sub) << (exp - SUB_BITS);
+        long width = 1L << (exp - SUB_BITS);
+        return lower + width - 1 < lower ? Long.MAX_VALUE : lower + width - 1;
+    }
+}
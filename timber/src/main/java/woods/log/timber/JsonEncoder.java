@@ -0,0 +1,212 @@
+package woods.log.timber;
+
+import android.support.annotation.NonNull;
+
+
+/**
+ * Encodes events as JSON lines, streaming into a builder reused by the thread.
+ * Primitives of key-values are written as they are, never boxed:
+ * <pre>
+ * {"ts":1508400000000,"level":"I","tag":"Api","thread":"main","tid":1,"class":"Api",
+ *  "method":"fetch","source":"&lt;Api.java:42&gt;","msg":"request done","ctx":{"request":"7f3a"},
+ *  "kv":{"user":42}}
+ * </pre>
+ */
+final class JsonEncoder {
+
+    /**
+     * Every line of an event starts with it
+     */
+    static final String START = "{\"ts\":";
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final ThreadLocal<JsonEncoder> Encoders = new ThreadLocal<JsonEncoder>() {
+        @Override
+        protected JsonEncoder initialValue() {
+            return new JsonEncoder();
+        }
+    };
+
+    private final StringBuilder Line = new StringBuilder(256);
+
+
+    private JsonEncoder() {
+    }
+
+    /**
+     * Encode the event as a JSON line.
+     *
+     * @param event     event to encode
+     * @param tag       tag the event is logged with
+     * @param exception description of the exception, null if there is none
+     */
+    static String encode(@NonNull Event event, @NonNull String tag, String exception) {
+        return Encoders.get().line(event, tag, exception);
+    }
+
+    /**
+     * Encode an entry of the table of exceptions as a JSON line.
+     */
+    static String exception(int id, long seen, @NonNull String trace) {
+        JsonEncoder encoder = Encoders.get();
+        StringBuilder sb = encoder.Line;
+        sb.setLength(0);
+
+        sb.append("{\"exception\":").append(id);
+        sb.append(",\"seen\":").append(seen);
+        encoder.string("trace", trace);
+
+        return sb.append('}').toString();
+    }
+
+    /**
+     * Wrap a line of logcat not logged as JSON, like one of other code in the process.
+     */
+    static String wrap(@NonNull String line) {
+        JsonEncoder encoder = Encoders.get();
+        StringBuilder sb = encoder.Line;
+        sb.setLength(0);
+
+        sb.append("{\"logcat\":");
+        encoder.quote(line);
+
+        return sb.append('}').toString();
+    }
+
+    private String line(@NonNull Event event, @NonNull String tag, String exception) {
+        StringBuilder sb = Line;
+        sb.setLength(0);
+
+        sb.append(START).append(event.when);
+        sb.append(",\"level\":\"").append(event.how.name()).append('"');
+        string("tag", tag);
+        string("thread", event.thread);
+        sb.append(",\"tid\":").append(event.tid);
+        string("class", event.who);
+        string("method", event.where);
+        string("source", event.source);
+        string("msg", event.message());
+
+        if (exception != null) {
+            string("exception", exception);
+        }
+
+        Scope scope = event.scope;
+        if (scope != null && scope.size() > 0) {
+            sb.append(",\"ctx\":{");
+            for (int i = 0; i < scope.size(); i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                quote(scope.key(i));
+                sb.append(':');
+                quote(scope.value(i));
+            }
+            sb.append('}');
+        }
+
+        Fields fields = event.fields;
+        if (fields != null && fields.Size > 0) {
+            sb.append(",\"kv\":{");
+            for (int i = 0; i < fields.Size; i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                quote(fields.Keys[i]);
+                sb.append(':');
+
+                switch (fields.Types[i]) {
+                    case Fields.LONG:
+                        sb.append(fields.Longs[i]);
+                        break;
+                    case Fields.DOUBLE:
+                        number(fields.Doubles[i]);
+                        break;
+                    case Fields.BOOLEAN:
+                        sb.append(fields.Longs[i] != 0);
+                        break;
+                    default:
+                        value(fields.Objects[i]);
+                        break;
+                }
+            }
+            sb.append('}');
+        }
+
+        return sb.append('}').toString();
+    }
+
+    private void string(@NonNull String name, String value) {
+        if (value == null) {
+            return;
+        }
+
+        Line.append(',');
+        quote(name);
+        Line.append(':');
+        quote(value);
+    }
+
+    private void value(Object value) {
+        if (value == null) {
+            Line.append("null");
+        } else if (value instanceof Boolean) {
+            Line.append(((Boolean) value).booleanValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            number(((Number) value).doubleValue());
+        } else if (value instanceof Number) {
+            Line.append(((Number) value).longValue());
+        } else {
+            quote(String.valueOf(value));
+        }
+    }
+
+    /**
+     * NaN and infinities are not numbers of JSON, they are written as strings.
+     */
+    private void number(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            Line.append('"').append(value).append('"');
+        } else {
+            Line.append(value);
+        }
+    }
+
+    private void quote(@NonNull String s) {
+        StringBuilder sb = Line;
+        sb.append('"');
+
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+                        sb.append("\\u")
+                                .append(HEX[(c >> 12) & 0xF]).append(HEX[(c >> 8) & 0xF])
+                                .append(HEX[(c >> 4) & 0xF]).append(HEX[c & 0xF]);
+                    } else {
+                        sb.append(c);
+                    }
+                    break;
+            }
+        }
+
+        sb.append('"');
+    }
+}
@@ -0,0 +1,314 @@
+package woods.log.timber;
+
+import android.support.annotation.NonNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Rate limiting and sampling rules of a {@link Spec}, applied to each call site or each tag.
+ * Rules are checked on the calling thread with atomic counters only, no lock is taken.
+ * Logs suppressed are counted, a summary is logged to the sink for each key when the interval
+ * closes. Keys idle for an interval are evicted, and sweeping stops once none is left.
+ * Assertions are never suppressed.
+ */
+final class Limiter {
+
+    /**
+     * Format of summary, summaries are told by it
+     */
+    static final String SUMMARY = "%d logs suppressed in last %d ms.";
+
+    private static final long DEFAULT_INTERVAL = 1000;
+
+    /**
+     * Keys limited at once at most, logs of keys beyond are let go until idle ones are evicted
+     */
+    private static final int MAX_KEYS = 1024;
+
+    private final Sink Sink;
+
+    private final boolean PerTag;
+
+    /**
+     * Microseconds between tokens of bucket, 0 if not limited by rate
+     */
+    private final long Emission;
+
+    /**
+     * Microseconds a log may come earlier than its token, for burst
+     */
+    private final long Tolerance;
+
+    private final int Sample;
+
+    private final int First;
+
+    private final long Interval;
+
+    private final ConcurrentHashMap<Object, Window> Windows = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean Sweeping = new AtomicBoolean(false);
+
+    private volatile boolean Retired = false;
+
+    private final Runnable Sweep = new Runnable() {
+        @Override
+        public void run() {
+            report();
+
+            if (Retired) {
+                return;
+            }
+
+            // Sweeping stops once no key is left, a key added meanwhile starts it again
+            if (Windows.isEmpty()) {
+                Sweeping.set(false);
+                if (Windows.isEmpty() || !Sweeping.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+
+            Sawmill.schedule(this, Interval);
+        }
+    };
+
+
+    private Limiter(@NonNull Spec spec, @NonNull Sink sink) {
+        Sink = sink;
+        PerTag = spec.PerTag;
+
+        if (spec.Rate > 0) {
+            Emission = Math.max(1, 1000000L / spec.Rate);
+            Tolerance = Emission * (Math.max(spec.Burst, spec.Rate) - 1);
+        } else {
+            Emission = 0;
+            Tolerance = 0;
+        }
+
+        Sample = spec.Sample;
+        First = spec.First;
+        Interval = spec.Interval > 0 ? spec.Interval : DEFAULT_INTERVAL;
+    }
+
+    /**
+     * Create limiter of the spec for the sink.
+     *
+     * @return null if the spec has no rule
+     */
+    static Limiter of(Spec spec, @NonNull Sink sink) {
+        if (spec == null || (spec.Rate <= 0 && spec.Sample <= 1 && spec.First <= 0)) {
+            return null;
+        }
+
+        return new Limiter(spec, sink);
+    }
+
+    /**
+     * Whether the event passes the rules, it is counted as suppressed if not.
+     */
+    boolean allow(@NonNull Event event) {
+        if (event.how == Level.A) {
+            return true;
+        }
+
+        Object key = PerTag ? (event.what != null ? event.what : event.who) : event.site;
+        if (key == null) {
+            return true;
+        }
+
+        Window window = Windows.get(key);
+        if (window == null) {
+            if (Windows.size() >= MAX_KEYS) {
+                return true;
+            }
+
+            window = new Window(event);
+            Window prior = Windows.putIfAbsent(key, window);
+            if (prior != null) {
+                window = prior;
+            } else if (Sweeping.compareAndSet(false, true)) {
+                Sawmill.schedule(Sweep, Interval);
+            }
+        }
+
+        if (!window.Touched) {
+            window.Touched = true;
+        }
+
+        if (pass(window, event.when)) {
+            return true;
+        }
+
+        window.Suppressed.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Stop sweeping, summaries of logs suppressed so far are logged.
+     */
+    void retire() {
+        Retired = true;
+
+        if (Sweeping.get()) {
+            Sawmill.execute(new Runnable() {
+                @Override
+                public void run() {
+                    report();
+                }
+            });
+        }
+    }
+
+    /**
+     * Sampling is checked first but only counts logs it drops and logs passing all rules, so
+     * 1 in every Sample logs the other rules let go is logged.
+     */
+    private boolean pass(@NonNull Window window, long now) {
+        if (Sample > 1 && window.Seen.get() % Sample != 0) {
+            window.Seen.incrementAndGet();
+            return false;
+        }
+
+        if (First > 0) {
+            long current = (now / Interval) & 0xFFFFFFFFL;
+            while (true) {
+                long state = window.State.get();
+                long count = state & 0xFFFFFFFFL;
+
+                long next;
+                if ((state >>> 32) != current) {
+                    next = (current << 32) | 1;
+                } else if (count < First) {
+                    next = state + 1;
+                } else {
+                    return false;
+                }
+
+                if (window.State.compareAndSet(state, next)) {
+                    break;
+                }
+            }
+        }
+
+        if (Emission > 0) {
+            long t = now * 1000;
+            while (true) {
+                long tat = window.Tat.get();
+                long base = Math.max(tat, t);
+                if (base - t > Tolerance) {
+                    return false;
+                }
+
+                if (window.Tat.compareAndSet(tat, base + Emission)) {
+                    break;
+                }
+            }
+        }
+
+        if (Sample > 1) {
+            window.Seen.incrementAndGet();
+        }
+
+        return true;
+    }
+
+    /**
+     * Log a summary for each key with logs suppressed since last report. Keys without logs
+     * since then, and out of tokens no more, are evicted.
+     */
+    private void report() {
+        long now = System.currentTimeMillis();
+
+        for (Map.Entry<Object, Window> entry : Windows.entrySet()) {
+            Window window = entry.getValue();
+            long suppressed = window.Suppressed.getAndSet(0);
+            long since = window.Since;
+            window.Since = now;
+
+            if (!window.Touched && suppressed == 0 && window.Tat.get() <= now * 1000) {
+                Windows.remove(entry.getKey(), window);
+                continue;
+            }
+            window.Touched = false;
+
+            if (suppressed > 0) {
+                Event summary = new Event();
+                summary.who = window.Who;
+                summary.where = window.Where;
+                summary.what = window.What;
+                summary.pack = window.Pack;
+                summary.source = window.Source;
+                summary.site = window.Site;
+                summary.when = now;
+                summary.thread = Tools.getCurrentThreadName();
+                summary.tid = Tools.getCurrentThreadId();
+                summary.bind(window.Level, null);
+                summary.bind(SUMMARY, new Object[]{suppressed, now - since});
+
+                Sink.Front.log(summary);
+            }
+        }
+    }
+
+    /**
+     * Counters of a key, names are kept from its first log for summaries.
+     */
+    private static final class Window {
+
+        /**
+         * Theoretical arrival time of next log in microseconds, for token bucket
+         */
+        final AtomicLong Tat = new AtomicLong(0);
+
+        /**
+         * Logs seen, for sampling
+         */
+        final AtomicLong Seen = new AtomicLong(0);
+
+        /**
+         * Interval number in high 32 bits and logs passed in it in low 32 bits
+         */
+        final AtomicLong State = new AtomicLong(0);
+
+        final AtomicLong Suppressed = new AtomicLong(0);
+
+        /**
+         * Whether a log came since last sweep
+         */
+        volatile boolean Touched = false;
+
+        /**
+         * Start of the interval being summarized, only touched by sweep
+         */
+        volatile long Since;
+
+        final String Who;
+
+        final String Where;
+
+        final String What;
+
+        final String Pack;
+
+        final String Source;
+
+        final Milieu.CallSite Site;
+
+        final Level Level;
+
+        Window(@NonNull Event event) {
+            Since = event.when;
+            Who = event.who;
+            Where = event.where;
+            What = event.what;
+            Pack = event.pack;
+            Source = event.source;
+            Site = event.site;
+            Level = event.how;
+        }
+    }
+}
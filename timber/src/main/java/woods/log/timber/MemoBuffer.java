@@ -0,0 +1,361 @@
+package woods.log.timber;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Calendar;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A ring of events serialized into a direct {@link ByteBuffer}, outside of java heap.
+ * Logging threads put events in, the memo drains them into files.
+ * <p>
+ * Layout of a record:
+ * [int length][byte level][byte flags][long millis][int tid][int tag id][UTF-8 message]
+ * A record never wraps around the end of the ring, the rest space is skipped with a length of -1.
+ * Flags tell whether the event matches the spec, and whether it is written bare, without header.
+ */
+final class MemoBuffer {
+
+    private final static int HEADER = 4 + 1 + 1 + 8 + 4 + 4;
+
+    private final static int WRAP = -1;
+
+    private final static int MATCHED = 1;
+
+    private final static int BARE = 2;
+
+    private final static int MAX_HEADER_TEXT = 128;
+
+    private final static Charset UTF8 = Charset.forName("UTF-8");
+
+    private final static byte[] LEVELS = {'*', 'V', 'D', 'I', 'W', 'E', 'A', 'S'};
+
+    private final ByteBuffer Ring;
+
+    private final int Capacity;
+
+    /**
+     * Total bytes ever written, guarded by the buffer itself
+     */
+    private volatile long Written = 0;
+
+    /**
+     * Total bytes ever drained, updated by the memo only
+     */
+    private volatile long Drained = 0;
+
+    private volatile long Dropped = 0;
+
+    /**
+     * Tag strings are written as id, the bytes of tag are kept here
+     */
+    private final ConcurrentHashMap<String, Integer> TagIds = new ConcurrentHashMap<>();
+
+    private volatile byte[][] TagBytes = new byte[16][];
+
+    /**
+     * Views and scratch used by the memo for draining, never touched by logging threads
+     */
+    private final ByteBuffer View;
+
+    private final byte[] HeaderBytes = new byte[MAX_HEADER_TEXT];
+
+    private final ByteBuffer HeaderView = ByteBuffer.wrap(HeaderBytes);
+
+    private final ByteBuffer NewLine = ByteBuffer.wrap(new byte[]{'\n'});
+
+    private final ByteBuffer[] Gather = new ByteBuffer[3];
+
+    private final Calendar Clock = Calendar.getInstance();
+
+
+    MemoBuffer(int capacity) {
+        Capacity = capacity;
+        Ring = ByteBuffer.allocateDirect(capacity);
+        View = Ring.duplicate();
+    }
+
+    /**
+     * Serialize an event into the ring, the event is dropped if there is no room for it.
+     *
+     * @param bare whether the message is written as it is, like JSON lines, without header
+     */
+    void put(int level, boolean matched, boolean bare, long millis, int tid, @NonNull String tag,
+             @NonNull String message) {
+        int tagid = tagId(tag);
+        int length = HEADER + utf8Length(message);
+
+        synchronized (this) {
+            int position = (int) (Written % Capacity);
+            int tail = Capacity - position;
+            int skip = (tail < length ? tail : 0);
+
+            if (length + skip > Capacity - (Written - Drained)) {
+                Dropped++;
+                return;
+            }
+
+            if (skip > 0) {
+                if (skip >= 4) {
+                    Ring.putInt(position, WRAP);
+                }
+                position = 0;
+            }
+
+            Ring.putInt(position, length);
+            Ring.put(position + 4, (byte) level);
+            Ring.put(position + 5, (byte) ((matched ? MATCHED : 0) | (bare ? BARE : 0)));
+            Ring.putLong(position + 6, millis);
+            Ring.putInt(position + 14, tid);
+            Ring.putInt(position + 18, tagid);
+            putUtf8(position + HEADER, message);
+
+            Written = Written + skip + length;
+        }
+    }
+
+    /**
+     * Percent of the ring waiting to be drained, that is how far memo lags behind.
+     */
+    int pressure() {
+        return (int) ((Written - Drained) * 100 / Capacity);
+    }
+
+    /**
+     * Whether there are events to drain.
+     */
+    boolean pending() {
+        return Written != Drained;
+    }
+
+    /**
+     * Write all events in the ring into files in 'threadtime' like format, or bare.
+     *
+     * @param channels files indexed by level ordinal, channels[0] takes all events
+     * @param bytes    bytes written into each file are added to it, indexed as channels
+     * @return events drained
+     */
+    long drain(@NonNull FileChannel[] channels, @NonNull AtomicLongArray bytes)
+            throws IOException {
+        long written = Written;
+        long drained = Drained;
+        long lines = 0;
+
+        while (drained < written) {
+            int position = (int) (drained % Capacity);
+            int tail = Capacity - position;
+
+            if (tail < HEADER || (tail >= 4 && Ring.getInt(position) == WRAP)) {
+                drained += tail;
+                continue;
+            }
+
+            int length = Ring.getInt(position);
+            int level = Ring.get(position + 4);
+            int flags = Ring.get(position + 5);
+            boolean matched = (flags & MATCHED) != 0;
+
+            int header = (flags & BARE) != 0 ? 0 : formatHeader(Ring.getLong(position + 6),
+                    Ring.getInt(position + 14), level, Ring.getInt(position + 18));
+
+            View.limit(position + length).position(position + HEADER);
+            HeaderView.limit(header).position(0);
+            NewLine.position(0);
+
+            Gather[0] = HeaderView;
+            Gather[1] = View;
+            Gather[2] = NewLine;
+
+            int all = Level.ALL.ordinal();
+            bytes.addAndGet(all, write(channels[all], position));
+
+            if (matched && level < channels.length && channels[level] != null) {
+                HeaderView.position(0);
+                NewLine.position(0);
+                bytes.addAndGet(level, write(channels[level], position));
+            }
+
+            drained += length;
+            lines++;
+        }
+
+        synchronized (this) {
+            Drained = drained;
+            notifyAll();
+        }
+
+        return lines;
+    }
+
+    /**
+     * Block until events put before this call have been drained.
+     */
+    boolean awaitDrained(long timeout) {
+        long target = Written;
+        long deadline = System.currentTimeMillis() + timeout;
+
+        synchronized (this) {
+            while (Drained < target) {
+                long left = deadline - System.currentTimeMillis();
+                if (left <= 0) {
+                    return false;
+                }
+
+                try {
+                    wait(left);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    long dropped() {
+        return Dropped;
+    }
+
+    private long write(FileChannel channel, int position) throws IOException {
+        if (channel == null) {
+            return 0;
+        }
+
+        long written = 0;
+        View.position(position + HEADER);
+        while (NewLine.hasRemaining()) {
+            written += channel.write(Gather);
+        }
+
+        return written;
+    }
+
+    private int tagId(@NonNull String tag) {
+        Integer id = TagIds.get(tag);
+        if (id != null) {
+            return id;
+        }
+
+        synchronized (TagIds) {
+            id = TagIds.get(tag);
+            if (id == null) {
+                id = TagIds.size();
+
+                byte[][] tags = TagBytes;
+                if (id >= tags.length) {
+                    byte[][] grown = new byte[tags.length * 2][];
+                    System.arraycopy(tags, 0, grown, 0, tags.length);
+                    tags = grown;
+                }
+                tags[id] = tag.getBytes(UTF8);
+                TagBytes = tags;
+
+                TagIds.put(tag, id);
+            }
+        }
+
+        return id;
+    }
+
+    /**
+     * "MM-dd HH:mm:ss.SSS  tid L tag: "
+     */
+    private int formatHeader(long millis, int tid, int level, int tagid) {
+        Clock.setTimeInMillis(millis);
+
+        int i = 0;
+        i = putDigits(Clock.get(Calendar.MONTH) + 1, 2, '0', i);
+        HeaderBytes[i++] = '-';
+        i = putDigits(Clock.get(Calendar.DAY_OF_MONTH), 2, '0', i);
+        HeaderBytes[i++] = ' ';
+        i = putDigits(Clock.get(Calendar.HOUR_OF_DAY), 2, '0', i);
+        HeaderBytes[i++] = ':';
+        i = putDigits(Clock.get(Calendar.MINUTE), 2, '0', i);
+        HeaderBytes[i++] = ':';
+        i = putDigits(Clock.get(Calendar.SECOND), 2, '0', i);
+        HeaderBytes[i++] = '.';
+        i = putDigits(Clock.get(Calendar.MILLISECOND), 3, '0', i);
+        HeaderBytes[i++] = ' ';
+        i = putDigits(tid, 5, ' ', i);
+        HeaderBytes[i++] = ' ';
+        HeaderBytes[i++] = LEVELS[level];
+        HeaderBytes[i++] = ' ';
+
+        byte[] tag = TagBytes[tagid];
+        int n = Math.min(tag.length, MAX_HEADER_TEXT - i - 2);
+        System.arraycopy(tag, 0, HeaderBytes, i, n);
+        i += n;
+
+        HeaderBytes[i++] = ':';
+        HeaderBytes[i++] = ' ';
+
+        return i;
+    }
+
+    private int putDigits(int value, int width, char pad, int i) {
+        int digits = 1;
+        for (int v = value / 10; v > 0; v /= 10) {
+            digits++;
+        }
+
+        for (int n = width - digits; n > 0; n--) {
+            HeaderBytes[i++] = (byte) pad;
+        }
+
+        for (int k = i + digits - 1; k >= i; k--) {
+            HeaderBytes[k] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+
+        return i + digits;
+    }
+
+    private static int utf8Length(@NonNull String s) {
+        int length = 0;
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < n
+                    && Character.isLowSurrogate(s.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+
+        return length;
+    }
+
+    private void putUtf8(int position, @NonNull String s) {
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                Ring.put(position++, (byte) c);
+            } else if (c < 0x800) {
+                Ring.put(position++, (byte) (0xC0 | (c >> 6)));
+                Ring.put(position++, (byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < n
+                    && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                Ring.put(position++, (byte) (0xF0 | (cp >> 18)));
+                Ring.put(position++, (byte) (0x80 | ((cp >> 12) & 0x3F)));
+                Ring.put(position++, (byte) (0x80 | ((cp >> 6) & 0x3F)));
+                Ring.put(position++, (byte) (0x80 | (cp & 0x3F)));
+            } else {
+                Ring.put(position++, (byte) (0xE0 | (c >> 12)));
+                Ring.put(position++, (byte) (0x80 | ((c >> 6) & 0x3F)));
+                Ring.put(position++, (byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+}
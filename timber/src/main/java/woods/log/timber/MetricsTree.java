@@ -0,0 +1,265 @@
+package woods.log.timber;
+
+import android.support.annotation.NonNull;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+
+/**
+ * A tree counts logs of tags listed in "Metrics" of its spec, by call site or by tag if "PerTag"
+ * is set. Durations in the "ms" key-value, like those of {@link Span}s, go into a histogram.
+ * Once every "Interval" a single record of all counts is logged through the forest with tag
+ * "Metrics":
+ * <pre>
+ *     Metrics of last 60000 ms. Cache.get&lt;Cache.java:42&gt;=1234 Api.fetch&lt;Api.java:7&gt;=12
+ *     Api.fetch&lt;Api.java:7&gt;.p50=31.0 Api.fetch&lt;Api.java:7&gt;.p99=255.0 ...
+ * </pre>
+ * Pin {@link Wood} with the same spec, so the logs aggregated are not written as lines.
+ */
+public class MetricsTree extends Sink {
+
+    /**
+     * Tag of the records of metrics
+     */
+    public static final String TAG = "Metrics";
+
+    /**
+     * Interval of records if spec does not tell
+     */
+    private static final long DEFAULT_INTERVAL = 60 * 1000;
+
+    /**
+     * Keys counted at most, logs of keys beyond are not counted
+     */
+    private static final int MAX_KEYS = 1024;
+
+    private volatile Setting Setting = new Setting(null);
+
+
+    public MetricsTree() {
+    }
+
+    @Override
+    public void plant() {
+    }
+
+    /**
+     * Counts not recorded yet are recorded.
+     */
+    @Override
+    public void uproot() {
+        Setting.retire();
+    }
+
+    /**
+     * Counts under the spec before are recorded, counting starts over.
+     */
+    @Override
+    public void pin(@NonNull Spec spec) {
+        Setting old = Setting;
+        Setting = new Setting(spec);
+        old.retire();
+    }
+
+    /**
+     * Counts are kept in memory until recorded.
+     */
+    @Override
+    public boolean flush(long timeout) {
+        return true;
+    }
+
+    @Override
+    public boolean isLoggable(@NonNull Level level, String tag) {
+        Setting setting = Setting;
+        return setting.Tags != null && level.ordinal() >= setting.Level.ordinal();
+    }
+
+    /**
+     * Count the event if its tag is aggregated.
+     */
+    @Override
+    public void log(@NonNull Event event) {
+        Setting setting = Setting;
+        String tag = event.what != null ? event.what : event.who;
+        if (setting.Tags == null || tag == null || !setting.Tags.contains(tag)) {
+            return;
+        }
+
+        Object key = setting.PerTag ? tag : event.site;
+        if (key == null) {
+            return;
+        }
+
+        Metric metric = setting.Metrics.get(key);
+        if (metric == null) {
+            if (setting.Metrics.size() >= MAX_KEYS) {
+                return;
+            }
+
+            String name = setting.PerTag || event.site == null ? tag
+                    : event.site.Class + "." + event.site.Method + event.site.Source;
+            metric = new Metric(name);
+            Metric prior = setting.Metrics.putIfAbsent(key, metric);
+            if (prior != null) {
+                metric = prior;
+            } else {
+                setting.start();
+            }
+        }
+
+        metric.Count.add(event.tid);
+
+        Fields fields = event.fields;
+        if (fields != null) {
+            for (int i = 0; i < fields.Size; i++) {
+                if ("ms".equals(fields.Keys[i])) {
+                    metric.latency().record((long) (fields.doubleValue(i) * 1000));
+                    break;
+                }
+            }
+        }
+    }
+
+    private static final class Metric {
+
+        final String Name;
+
+        final Counter Count = new Counter();
+
+        /**
+         * Microseconds of the interval, created when the first one comes
+         */
+        final AtomicReference<Histogram> Latency = new AtomicReference<>();
+
+        Metric(@NonNull String name) {
+            Name = name;
+        }
+
+        Histogram latency() {
+            Histogram latency = Latency.get();
+            if (latency == null) {
+                Latency.compareAndSet(null, new Histogram());
+                latency = Latency.get();
+            }
+
+            return latency;
+        }
+    }
+
+    /**
+     * Spec applied with its metrics, replaced on pin.
+     */
+    private static final class Setting {
+
+        final Set<String> Tags;
+
+        final Level Level;
+
+        final boolean PerTag;
+
+        final long Interval;
+
+        final ConcurrentHashMap<Object, Metric> Metrics = new ConcurrentHashMap<>();
+
+        private final AtomicBoolean Reporting = new AtomicBoolean(false);
+
+        private volatile boolean Retired = false;
+
+        private long Since = System.currentTimeMillis();
+
+        private final Runnable Report = new Runnable() {
+            @Override
+            public void run() {
+                report();
+
+                if (!Retired) {
+                    Sawmill.schedule(this, Interval);
+                }
+            }
+        };
+
+        Setting(Spec spec) {
+            Tags = spec != null && spec.Metrics != null
+                    ? new HashSet<>(Arrays.asList(spec.Metrics)) : null;
+            Level = spec != null && spec.Level != null ? spec.Level : woods.log.timber.Level.V;
+            PerTag = spec != null && spec.PerTag;
+            Interval = spec != null && spec.Interval > 0 ? spec.Interval : DEFAULT_INTERVAL;
+        }
+
+        /**
+         * Start recording, once.
+         */
+        void start() {
+            if (Reporting.compareAndSet(false, true)) {
+                Since = System.currentTimeMillis();
+                Sawmill.schedule(Report, Interval);
+            }
+        }
+
+        /**
+         * Stop recording, counts not recorded yet are recorded.
+         */
+        void retire() {
+            Retired = true;
+
+            if (Reporting.get()) {
+                Sawmill.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        report();
+                    }
+                });
+            }
+        }
+
+        /**
+         * Log a single record of counts since last one, nothing if there is none.
+         */
+        private synchronized void report() {
+            long now = System.currentTimeMillis();
+            long since = Since;
+            Since = now;
+
+            Fields fields = new Fields();
+            for (Metric metric : Metrics.values()) {
+                long count = metric.Count.sumThenReset();
+                if (count == 0) {
+                    continue;
+                }
+                fields.put(metric.Name, count);
+
+                Histogram latency = metric.Latency.getAndSet(null);
+                if (latency != null && latency.count() > 0) {
+                    fields.put(metric.Name + ".p50", latency.percentile(0.5) / 1000.0);
+                    fields.put(metric.Name + ".p99", latency.percentile(0.99) / 1000.0);
+                    fields.put(metric.Name + ".max", latency.max() / 1000.0);
+                }
+            }
+
+            if (fields.Size == 0) {
+                return;
+            }
+
+            Event record = new Event();
+            record.who = MetricsTree.class.getSimpleName();
+            record.where = "report";
+            record.what = TAG;
+            record.pack = MetricsTree.class.getPackage().getName();
+            record.source = "<MetricsTree.java>";
+            record.when = now;
+            record.thread = Tools.getCurrentThreadName();
+            record.tid = Tools.getCurrentThreadId();
+            record.bind(woods.log.timber.Level.I, null);
+            record.bind("Metrics of last %d ms.", new Object[]{now - since});
+            record.fields = fields;
+
+            Timber.emit(record);
+        }
+    }
+}
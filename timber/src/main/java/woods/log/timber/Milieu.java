@@ -2,18 +2,20 @@ package woods.log.timber;
 
 import android.support.annotation.NonNull;
 
-import java.text.SimpleDateFormat;
-import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Created by Harvey bv on 2017/11/28.
+ * Milieu is reused by the thread, it is reset on every probe rather than created.
  */
 
 public class Milieu {
 
-    private static final String ACCURATETIME = "MM-dd HH-mm-ss.SSS";
-
-    private static final SimpleDateFormat dateFormat = new SimpleDateFormat(ACCURATETIME, Locale.CHINA);
+    /**
+     * Call sites met so far, names of a call site is worked out only once
+     */
+    private static final ConcurrentHashMap<StackTraceElement, CallSite> CallSites =
+            new ConcurrentHashMap<>();
 
     /**
      * Caller class
@@ -31,9 +33,9 @@ public class Milieu {
     public String what;
 
     /**
-     * Date-Time
+     * Date-Time in epoch milliseconds
      */
-    public String when;
+    public long when;
 
     /**
      * Exception, if there is
@@ -50,6 +52,11 @@ public class Milieu {
      */
     public String thread;
 
+    /**
+     * Caller thread id
+     */
+    public int tid;
+
     /**
      * Caller thread
      */
@@ -60,8 +67,19 @@ public class Milieu {
      */
     public String source;
 
+    /**
+     * Interned call site, the same call site always has the same reference
+     */
+    CallSite site;
+
+
+    Milieu() {
+    }
 
-    public Milieu(String tag) {
+    /**
+     * Reset the milieu for a new logging call.
+     */
+    void probe(String tag, @NonNull Level l, Throwable e) {
         final int STACK_INDEX = 4;
 
         StackTraceElement trace;
@@ -73,24 +91,63 @@ public class Milieu {
             trace = stack[stack.length - 1];
         }
 
-        when = dateFormat.format(System.currentTimeMillis());
+        CallSite callsite = CallSites.get(trace);
+        if (callsite == null) {
+            callsite = new CallSite(trace);
+            CallSite interned = CallSites.putIfAbsent(trace, callsite);
+            if (interned != null) {
+                callsite = interned;
+            }
+        }
+
+        site = callsite;
+
+        when = System.currentTimeMillis();
 
-        where = Tools.getMethodNameFromStack(trace);
+        where = callsite.Method;
 
-        who = Tools.getClassNameFromStack(trace);
+        who = callsite.Class;
+
+        pack = callsite.Package;
+
+        source = callsite.Source;
 
         what = tag;
 
         thread = Tools.getCurrentThreadName();
 
-        pack = Tools.getPackageNameFromStack(trace);
+        tid = Tools.getCurrentThreadId();
 
-        source = String.format("<%s:%s>", trace.getFileName(),
-                String.valueOf(trace.getLineNumber()));
+        bind(l, e);
     }
 
     public void bind(@NonNull Level l, Throwable e) {
         how = l;
         why = e;
     }
+
+    /**
+     * Names of a call site.
+     */
+    static final class CallSite {
+
+        final String Class;
+
+        final String Method;
+
+        final String Package;
+
+        final String Source;
+
+        CallSite(@NonNull StackTraceElement trace) {
+            Class = Tools.getClassNameFromStack(trace);
+
+            Method = Tools.getMethodNameFromStack(trace);
+
+            Package = Tools.getPackageNameFromStack(trace);
+
+            Source = String.format("<%s:%s>", trace.getFileName(),
+                    String.valueOf(trace.getLineNumber()));
+        }
+    }
 }
@@ -0,0 +1,218 @@
+package woods.log.timber;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.Callable;
+
+
+/**
+ * A nursery stands in the forest for trees being grown on {@link Sawmill}, planting costs the
+ * calling thread nothing. Events logged meanwhile are held in a bounded queue, and replayed in
+ * order to the trees once they are planted, then the trees take its place in the forest.
+ * Assertions logged before trees are ready are replayed but not raised.
+ */
+final class Nursery extends Sink {
+
+    private final Callable<Tree[]> Seedlings;
+
+    private final Event[] Queue;
+
+    private int Count = 0;
+
+    private long Dropped = 0;
+
+    /**
+     * Trees grown, null until they are planted
+     */
+    private volatile Tree[] Trees = null;
+
+    private boolean Uprooted = false;
+
+
+    /**
+     * @param capacity   events could be held before trees are planted
+     * @param seedlings  creates trees to be planted, called on sawmill
+     */
+    Nursery(int capacity, @NonNull Callable<Tree[]> seedlings) {
+        if (capacity <= 0) {
+            throw new AssertionError("Capacity of nursery should be positive: " + capacity);
+        }
+
+        Seedlings = seedlings;
+        Queue = new Event[capacity];
+    }
+
+    @Override
+    public void plant() {
+        Sawmill.execute(new Runnable() {
+            @Override
+            public void run() {
+                grow();
+            }
+        });
+    }
+
+    @Override
+    public synchronized void uproot() {
+        Uprooted = true;
+
+        if (Trees != null) {
+            for (Tree tree : Trees) {
+                tree.uproot();
+            }
+        }
+    }
+
+    @Override
+    public void pin(@NonNull Spec spec) {
+    }
+
+    /**
+     * Wait until trees are planted, then until they flushed.
+     */
+    @Override
+    public boolean flush(long timeout) {
+        long deadline = System.currentTimeMillis() + timeout;
+
+        Tree[] trees;
+        synchronized (this) {
+            while (Trees == null && !Uprooted) {
+                long left = deadline - System.currentTimeMillis();
+                if (left <= 0) {
+                    return false;
+                }
+
+                try {
+                    wait(left);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+
+            trees = Trees;
+        }
+
+        boolean durable = true;
+        if (trees != null) {
+            for (Tree tree : trees) {
+                durable &= tree.flush(Math.max(0, deadline - System.currentTimeMillis()));
+            }
+        }
+
+        return durable;
+    }
+
+    /**
+     * Trees are not known yet, every event is held.
+     */
+    @Override
+    public boolean isLoggable(@NonNull Level level, String tag) {
+        return true;
+    }
+
+    /**
+     * Trees grown are told, nothing is there to save before.
+     */
+    @Override
+    void crash() {
+        Tree[] trees;
+        synchronized (this) {
+            trees = Trees;
+        }
+
+        if (trees != null) {
+            for (Tree tree : trees) {
+                if (tree instanceof Sink) {
+                    ((Sink) tree).crash();
+                }
+            }
+        }
+    }
+
+    @Override
+    synchronized int pressure() {
+        return Trees == null ? Count * 100 / Queue.length : 0;
+    }
+
+    @Override
+    synchronized void measure(@NonNull Stats.Branch branch) {
+        branch.queued = Count;
+        branch.dropped = Dropped;
+    }
+
+    @Override
+    public void log(@NonNull Event event) {
+        Tree[] trees;
+
+        synchronized (this) {
+            trees = Trees;
+
+            if (trees == null) {
+                if (Uprooted) {
+                    return;
+                }
+
+                if (Count == Queue.length) {
+                    Dropped++;
+                    return;
+                }
+
+                if (Queue[Count] == null) {
+                    Queue[Count] = new Event();
+                }
+                Queue[Count++].set(event);
+                return;
+            }
+        }
+
+        // Reaching here only before the forest is transplanted
+        Timber.replay(trees, event);
+    }
+
+    private void grow() {
+        Tree[] trees;
+        try {
+            trees = Seedlings.call();
+        } catch (Exception e) {
+            Timber.e(e, "Error growing trees.");
+            trees = new Tree[0];
+        }
+
+        for (Tree tree : trees) {
+            tree.plant();
+        }
+
+        synchronized (this) {
+            if (Uprooted) {
+                for (Tree tree : trees) {
+                    tree.uproot();
+                }
+
+                notifyAll();
+                return;
+            }
+
+            for (int i = 0; i < Count; i++) {
+                try {
+                    Timber.replay(trees, Queue[i]);
+                } catch (AssertionError e) {
+                    // Raising is too late for the caller, the log is what matters
+                }
+                Queue[i] = null;
+            }
+
+            Count = 0;
+            Trees = trees;
+
+            notifyAll();
+        }
+
+        Timber.transplant(this, trees);
+        Timber.i("Timber build complete.");
+
+        if (Dropped > 0) {
+            Timber.w("%d logs dropped before trees are ready.", Dropped);
+        }
+    }
+}
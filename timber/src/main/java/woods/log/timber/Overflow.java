@@ -0,0 +1,22 @@
+package woods.log.timber;
+
+/**
+ * What to do with a log when the queue of an isolated tree is full.
+ */
+
+public enum Overflow {
+    /**
+     * Drop the log coming
+     */
+    DROP_NEWEST,
+
+    /**
+     * Drop the oldest log in queue to make room
+     */
+    DROP_OLDEST,
+
+    /**
+     * Block the logging call until there is room
+     */
+    BLOCK
+}
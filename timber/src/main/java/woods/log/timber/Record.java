@@ -0,0 +1,84 @@
+package woods.log.timber;
+
+import android.support.annotation.NonNull;
+
+
+/**
+ * A structured logging call, key-values are added before the message:
+ * <pre>
+ *     Timber.at(Level.I).kv("user", id).kv("ms", elapsed).log("request done");
+ * </pre>
+ * A record is reused by its thread, it should not be kept after {@link #log(String)}.
+ */
+public final class Record {
+
+    Level Level = woods.log.timber.Level.I;
+
+    Throwable Cause = null;
+
+    final Fields Fields = new Fields();
+
+
+    Record() {
+    }
+
+    /**
+     * Reset the record for a new logging call.
+     */
+    Record at(@NonNull Level level) {
+        Level = level;
+        Cause = null;
+        Fields.clear();
+        return this;
+    }
+
+    public Record kv(@NonNull String key, long value) {
+        Fields.put(key, value);
+        return this;
+    }
+
+    public Record kv(@NonNull String key, int value) {
+        Fields.put(key, (long) value);
+        return this;
+    }
+
+    public Record kv(@NonNull String key, double value) {
+        Fields.put(key, value);
+        return this;
+    }
+
+    public Record kv(@NonNull String key, float value) {
+        Fields.put(key, (double) value);
+        return this;
+    }
+
+    public Record kv(@NonNull String key, boolean value) {
+        Fields.put(key, value);
+        return this;
+    }
+
+    public Record kv(@NonNull String key, String value) {
+        Fields.put(key, (Object) value);
+        return this;
+    }
+
+    public Record kv(@NonNull String key, Object value) {
+        Fields.put(key, value);
+        return this;
+    }
+
+    /**
+     * Attach exception to the record.
+     */
+    public Record cause(Throwable t) {
+        Cause = t;
+        return this;
+    }
+
+    /**
+     * Log the record with message, the message is not formatted.
+     */
+    public void log(@NonNull String message) {
+        Timber.record(this, message);
+    }
+}
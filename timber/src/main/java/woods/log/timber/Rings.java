@@ -0,0 +1,45 @@
+package woods.log.timber;
+
+
+/**
+ * Growth rings of the logging pipeline, counters and latencies Timber keeps of itself for
+ * {@link Timber#stats()}. Counters are striped, and only one in every {@link #SAMPLE} logging
+ * calls of a thread is timed, so they could be left on.
+ */
+final class Rings {
+
+    /**
+     * Logging calls of a thread between two timed ones, a power of 2
+     */
+    static final int SAMPLE = 64;
+
+    /**
+     * Logging calls by level
+     */
+    static final Counter[] Events = new Counter[Level.values().length];
+
+    /**
+     * Nanoseconds probing the caller
+     */
+    static final Histogram Probe = new Histogram();
+
+    /**
+     * Nanoseconds formatting messages
+     */
+    static final Histogram Format = new Histogram();
+
+    /**
+     * Nanoseconds handing events to sinks
+     */
+    static final Histogram Write = new Histogram();
+
+    static {
+        for (int i = 0; i < Events.length; i++) {
+            Events[i] = new Counter();
+        }
+    }
+
+
+    private Rings() {
+    }
+}
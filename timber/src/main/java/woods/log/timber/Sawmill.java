@@ -0,0 +1,103 @@
+package woods.log.timber;
+
+import android.os.Process;
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * The small executor all background work of trees is shared on, started on first use:
+ * growing trees, siting stores, reading logs and writing files.
+ * Long work is split into turns, a tree with more to do is scheduled again behind the others.
+ * Threads run at background priority unless set otherwise.
+ */
+final class Sawmill {
+
+    private static final String NAME = "Timber-Sawmill-";
+
+    private static final int THREADS = 2;
+
+    /**
+     * Priority of the threads, one of {@link Process} thread priorities
+     */
+    private static volatile int Priority = Process.THREAD_PRIORITY_BACKGROUND;
+
+    private static ScheduledExecutorService Executor = null;
+
+
+    private Sawmill() {
+        throw new AssertionError("No instances for 'Sawmill'.");
+    }
+
+    /**
+     * Set priority of sawmill threads, applied on their next task.
+     *
+     * @param priority a {@link Process} thread priority, e.g.
+     *                 {@link Process#THREAD_PRIORITY_BACKGROUND}
+     */
+    static void priority(int priority) {
+        Priority = priority;
+    }
+
+    /**
+     * Run the task on sawmill.
+     */
+    static void execute(@NonNull Runnable task) {
+        executor().execute(task);
+    }
+
+    /**
+     * Run the task on sawmill after delay.
+     */
+    static void schedule(@NonNull Runnable task, long delay) {
+        executor().schedule(task, delay, TimeUnit.MILLISECONDS);
+    }
+
+    static synchronized ScheduledExecutorService executor() {
+        if (Executor == null) {
+            Executor = new ScheduledThreadPoolExecutor(THREADS, new ThreadFactory() {
+
+                private final AtomicInteger Count = new AtomicInteger(0);
+
+                @Override
+                public Thread newThread(@NonNull Runnable r) {
+                    Thread thread = new Mill(r, NAME + Count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            }) {
+                @Override
+                protected void beforeExecute(Thread t, Runnable r) {
+                    ((Mill) t).prioritize();
+                }
+            };
+        }
+
+        return Executor;
+    }
+
+    /**
+     * A sawmill thread, priority is applied when changed.
+     */
+    private static final class Mill extends Thread {
+
+        private int Applied = Integer.MIN_VALUE;
+
+        Mill(@NonNull Runnable r, @NonNull String name) {
+            super(r, name);
+        }
+
+        void prioritize() {
+            int priority = Priority;
+            if (Applied != priority) {
+                Process.setThreadPriority(priority);
+                Applied = priority;
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package woods.log.timber;
+
+import android.support.annotation.NonNull;
+
+import java.io.Closeable;
+
+
+/**
+ * Logging context of a thread, like request or session ids. A scope is immutable, entering a key
+ * makes a new one, so events keep it by reference and threads hand it over without copy:
+ * <pre>
+ *     try (Scope.Exit ignored = Timber.enter("request", id)) {
+ *         Timber.i("request started");
+ *     }
+ * </pre>
+ */
+public final class Scope {
+
+    public static final Scope EMPTY = new Scope(new String[0], new String[0]);
+
+    private final String[] Keys;
+
+    private final String[] Values;
+
+
+    private Scope(@NonNull String[] keys, @NonNull String[] values) {
+        Keys = keys;
+        Values = values;
+    }
+
+    public int size() {
+        return Keys.length;
+    }
+
+    public String key(int i) {
+        return Keys[i];
+    }
+
+    public String value(int i) {
+        return Values[i];
+    }
+
+    /**
+     * Get value of the key, null if it is not in scope.
+     */
+    public String get(@NonNull String key) {
+        int i = indexOf(key);
+        return i < 0 ? null : Values[i];
+    }
+
+    /**
+     * Scope with the key set to value, this scope is not changed.
+     */
+    public Scope with(@NonNull String key, String value) {
+        if (value == null) {
+            return without(key);
+        }
+
+        int i = indexOf(key);
+        if (i >= 0) {
+            if (value.equals(Values[i])) {
+                return this;
+            }
+
+            String[] values = Values.clone();
+            values[i] = value;
+            return new Scope(Keys, values);
+        }
+
+        int n = Keys.length;
+        String[] keys = new String[n + 1];
+        String[] values = new String[n + 1];
+        System.arraycopy(Keys, 0, keys, 0, n);
+        System.arraycopy(Values, 0, values, 0, n);
+        keys[n] = key;
+        values[n] = value;
+        return new Scope(keys, values);
+    }
+
+    /**
+     * Scope without the key, this scope is not changed.
+     */
+    public Scope without(@NonNull String key) {
+        int i = indexOf(key);
+        if (i < 0) {
+            return this;
+        }
+
+        int n = Keys.length - 1;
+        if (n == 0) {
+            return EMPTY;
+        }
+
+        String[] keys = new String[n];
+        String[] values = new String[n];
+        System.arraycopy(Keys, 0, keys, 0, i);
+        System.arraycopy(Values, 0, values, 0, i);
+        System.arraycopy(Keys, i + 1, keys, i, n - i);
+        System.arraycopy(Values, i + 1, values, i, n - i);
+        return new Scope(keys, values);
+    }
+
+    /**
+     * Append keys as text, like " request=42 session=\"a b\"".
+     */
+    public StringBuilder appendTo(@NonNull StringBuilder sb) {
+        for (int i = 0; i < Keys.length; i++) {
+            String value = Values[i];
+            sb.append(' ').append(Keys[i]).append('=');
+
+            if (value.indexOf(' ') < 0 && value.indexOf('"') < 0 && value.indexOf('=') < 0
+                    && !value.isEmpty()) {
+                sb.append(value);
+            } else {
+                sb.append('"').append(value.replace("\"", "\\\"")).append('"');
+            }
+        }
+
+        return sb;
+    }
+
+    private int indexOf(@NonNull String key) {
+        for (int i = 0; i < Keys.length; i++) {
+            if (Keys[i].equals(key)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Restores the scope of the thread entered before, on close.
+     */
+    public static final class Exit implements Closeable {
+
+        private final Scope Prior;
+
+        Exit(@NonNull Scope prior) {
+            Prior = prior;
+        }
+
+        @Override
+        public void close() {
+            Timber.restore(Prior);
+        }
+    }
+}
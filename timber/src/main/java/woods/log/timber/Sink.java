@@ -0,0 +1,165 @@
+package woods.log.timber;
+
+import android.support.annotation.NonNull;
+
+
+/**
+ * A {@link Tree} takes logs as {@link Event}s through a single entry.
+ * Forest checks {@link #isLoggable(Level, String)} and {@link #admit(Event)}, then hands the
+ * event over, the message is formatted once for all sinks. Events queued somewhere could be handed over in batch.
+ */
+public abstract class Sink implements Tree {
+
+    /**
+     * Events handed to the sink by the forest
+     */
+    final Counter Accepted = new Counter();
+
+    /**
+     * Events the sink is not loggable for, or not admitted by its rules
+     */
+    final Counter Filtered = new Counter();
+
+    /**
+     * Sink events of the sink's own, like summaries, are handed to. A bulkhead puts itself in
+     * front of the sink it isolates, so they are queued after the events taken before.
+     */
+    volatile Sink Front = this;
+
+    /**
+     * Whether logs of the level and tag should be handed to the sink.
+     */
+    public abstract boolean isLoggable(@NonNull Level level, String tag);
+
+    /**
+     * Whether the event passes rules of the sink, checked on the calling thread before the
+     * event is handed over, and queued anywhere. Sinks admit every event by default.
+     */
+    boolean admit(@NonNull Event event) {
+        return true;
+    }
+
+    /**
+     * Take an event. The event may be reused once returned, copy it to keep.
+     */
+    public abstract void log(@NonNull Event event);
+
+    /**
+     * Fill in gauges of the sink for {@link Timber#stats()}, like events queued.
+     */
+    void measure(@NonNull Stats.Branch branch) {
+    }
+
+    /**
+     * Called on crash before logs are flushed, to save what is only kept in memory. Sinks
+     * wrapping others hand it over.
+     */
+    void crash() {
+    }
+
+    /**
+     * Percent of the sink's queue taken, watched by {@link Governor}. Sinks queue nothing
+     * by default.
+     */
+    int pressure() {
+        return 0;
+    }
+
+    /**
+     * Name of the sink in {@link Stats}, anonymous sinks are named after their super class.
+     */
+    String name() {
+        Class<?> clazz = getClass();
+        while (clazz.isAnonymousClass()) {
+            clazz = clazz.getSuperclass();
+        }
+
+        return clazz.getSimpleName();
+    }
+
+    /**
+     * Take first n events in batch.
+     */
+    public void log(@NonNull Event[] batch, int n) {
+        for (int i = 0; i < n; i++) {
+            log(batch[i]);
+        }
+    }
+
+    @Override
+    public final void v(@NonNull String message, Object... args) {
+        accept(Level.V, null, message, args);
+    }
+
+    @Override
+    public final void v(@NonNull Throwable t, @NonNull String message, Object... args) {
+        accept(Level.V, t, message, args);
+    }
+
+    @Override
+    public final void d(@NonNull String message, Object... args) {
+        accept(Level.D, null, message, args);
+    }
+
+    @Override
+    public final void d(@NonNull Throwable t, @NonNull String message, Object... args) {
+        accept(Level.D, t, message, args);
+    }
+
+    @Override
+    public final void i(@NonNull String message, Object... args) {
+        accept(Level.I, null, message, args);
+    }
+
+    @Override
+    public final void i(@NonNull Throwable t, @NonNull String message, Object... args) {
+        accept(Level.I, t, message, args);
+    }
+
+    @Override
+    public final void w(@NonNull String message, Object... args) {
+        accept(Level.W, null, message, args);
+    }
+
+    @Override
+    public final void w(@NonNull Throwable t, @NonNull String message, Object... args) {
+        accept(Level.W, t, message, args);
+    }
+
+    @Override
+    public final void e(@NonNull String message, Object... args) {
+        accept(Level.E, null, message, args);
+    }
+
+    @Override
+    public final void e(@NonNull Throwable t, @NonNull String message, Object... args) {
+        accept(Level.E, t, message, args);
+    }
+
+    @Override
+    public final void wtf(@NonNull String message, Object... args) {
+        accept(Level.A, null, message, args);
+    }
+
+    @Override
+    public final void wtf(@NonNull Throwable t, @NonNull String message, Object... args) {
+        accept(Level.A, t, message, args);
+    }
+
+    /**
+     * Logging call made to the sink directly, the event is the one probed.
+     */
+    private void accept(@NonNull Level level, Throwable t, @NonNull String message,
+                        Object... args) {
+        Event event = Timber.event();
+
+        if (isLoggable(level, event.what)) {
+            event.bind(level, t);
+            event.bind(message, args);
+
+            if (admit(event)) {
+                log(event);
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package woods.log.timber;
+
+import android.support.annotation.NonNull;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Times a block of code, started by {@link Timber#span(String)}:
+ * <pre>
+ *     try (Span ignored = Timber.span("db.query")) {
+ *         query();
+ *     }
+ * </pre>
+ * On close the duration is logged as "db.query span=7 parent=6 ms=12.345", or recorded in
+ * a histogram. Spans are pooled by their thread and should be closed on it, in the order opened.
+ * A span opened in another is its child.
+ */
+public final class Span implements Closeable {
+
+    /**
+     * Span returned when its level is not loggable, it does nothing
+     */
+    static final Span NONE = new Span(null, -1);
+
+    private static final AtomicLong Ids = new AtomicLong(0);
+
+    private static final ThreadLocal<Span[]> Stacks = new ThreadLocal<>();
+
+    private static final int MAX_DEPTH = 32;
+
+    /**
+     * Spans opened on the thread, index of the top is kept in the first
+     */
+    private final Span[] Stack;
+
+    private final int Depth;
+
+    final Fields Fields = new Fields();
+
+    String Name;
+
+    Level Level;
+
+    Histogram Histogram;
+
+    long Id;
+
+    long Parent;
+
+    long Start;
+
+    long Stop;
+
+    private boolean Open = false;
+
+
+    private Span(Span[] stack, int depth) {
+        Stack = stack;
+        Depth = depth;
+    }
+
+    /**
+     * Open a span on this thread, {@link #NONE} if spans nest too deep.
+     */
+    static Span open(@NonNull String name, Level level, Histogram histogram) {
+        Span[] stack = Stacks.get();
+        if (stack == null) {
+            stack = new Span[MAX_DEPTH + 1];
+            Stacks.set(stack);
+        }
+
+        Span top = stack[0];
+        int depth = top == null ? 1 : top.Depth + 1;
+        if (depth > MAX_DEPTH) {
+            return NONE;
+        }
+
+        Span span = stack[depth];
+        if (span == null) {
+            span = new Span(stack, depth);
+            stack[depth] = span;
+        }
+
+        span.Name = name;
+        span.Level = level;
+        span.Histogram = histogram;
+        span.Id = Ids.incrementAndGet();
+        span.Parent = top == null ? 0 : top.Id;
+        span.Open = true;
+        stack[0] = span;
+        span.Start = System.nanoTime();
+
+        return span;
+    }
+
+    public String name() {
+        return Name;
+    }
+
+    public long id() {
+        return Id;
+    }
+
+    /**
+     * Id of the span this one is opened in, 0 if there is none.
+     */
+    public long parent() {
+        return Parent;
+    }
+
+    /**
+     * Nanoseconds from open to close, or to now if it is open.
+     */
+    public long elapsed() {
+        return (Open ? System.nanoTime() : Stop) - Start;
+    }
+
+    /**
+     * Stop the span, its duration is logged or recorded. Spans opened in it and left open are
+     * dropped.
+     */
+    @Override
+    public void close() {
+        if (!Open) {
+            return;
+        }
+
+        Stop = System.nanoTime();
+        Open = false;
+
+        for (int i = Depth + 1; i <= MAX_DEPTH && Stack[i] != null && Stack[i].Open; i++) {
+            Stack[i].Open = false;
+        }
+        Stack[0] = Depth == 1 ? null : Stack[Depth - 1];
+
+        if (Histogram != null) {
+            Histogram.record(Stop - Start);
+        } else {
+            Fields.clear();
+            Fields.put("span", Id);
+            if (Parent != 0) {
+                Fields.put("parent", Parent);
+            }
+            Fields.put("ms", (Stop - Start) / 1e6);
+            Timber.span(this);
+        }
+    }
+}
@@ -29,4 +29,76 @@ public class Spec {
      * Specified to catalog
      */
     String Method;
+
+    /**
+     * Level that triggers persisting, logs below are held in memory until trigger arrives.
+     * Lines read back from logcat are held, so Buffer is not taken along with it
+     */
+    Level Trigger;
+
+    /**
+     * Milliseconds of logs held before the trigger to be persisted, the latest 1024 lines at most
+     */
+    long Before;
+
+    /**
+     * Milliseconds of logs to be persisted after the trigger
+     */
+    long After;
+
+    /**
+     * Bytes of off-heap buffer logs are written through, logcat is read if not set. Only taken
+     * before memo starts, a memo goes on the way it started
+     */
+    int Buffer;
+
+    /**
+     * Whether to pin specs from the spec file in log store when it changes
+     */
+    boolean Watch;
+
+    /**
+     * Logs allowed per second on each call site or tag, 0 for no limit
+     */
+    int Rate;
+
+    /**
+     * Logs could pass at once before rate limits, same as rate if not set
+     */
+    int Burst;
+
+    /**
+     * Only one in every Sample logs on each call site or tag passes
+     */
+    int Sample;
+
+    /**
+     * Only first logs on each call site or tag in every interval pass
+     */
+    int First;
+
+    /**
+     * Milliseconds of interval, suppressed logs are summarized once for each, 1 second if not set
+     */
+    long Interval;
+
+    /**
+     * Whether rules apply to each tag rather than each call site
+     */
+    boolean PerTag;
+
+    /**
+     * Milliseconds repeated messages of a call site are coalesced in, 0 for not coalescing
+     */
+    long Coalesce;
+
+    /**
+     * Whether logs are written as JSON lines rather than text
+     */
+    boolean Json;
+
+    /**
+     * Tags of logs aggregated into metrics rather than written, class names are tags of untagged
+     */
+    String[] Metrics;
 }
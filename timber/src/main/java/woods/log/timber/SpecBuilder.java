@@ -0,0 +1,117 @@
+package woods.log.timber;
+
+import android.support.annotation.NonNull;
+
+
+/**
+ * A builder to create {@link Spec} in code, as what {@link Pin} describes in JSON.
+ * Classes generated for seeds pin trees with it, no JSON is parsed at runtime.
+ */
+
+public class SpecBuilder {
+
+    private final Spec Spec = new Spec();
+
+
+    public SpecBuilder() {
+    }
+
+    public SpecBuilder filters(@NonNull Level... filters) {
+        Spec.Filters = filters;
+        return this;
+    }
+
+    public SpecBuilder level(@NonNull Level level) {
+        Spec.Level = level;
+        return this;
+    }
+
+    public SpecBuilder thread(@NonNull String thread) {
+        Spec.Thread = thread;
+        return this;
+    }
+
+    public SpecBuilder clazz(@NonNull String clazz) {
+        Spec.Class = clazz;
+        return this;
+    }
+
+    public SpecBuilder method(@NonNull String method) {
+        Spec.Method = method;
+        return this;
+    }
+
+    public SpecBuilder trigger(@NonNull Level trigger) {
+        Spec.Trigger = trigger;
+        return this;
+    }
+
+    public SpecBuilder before(long millis) {
+        Spec.Before = millis;
+        return this;
+    }
+
+    public SpecBuilder after(long millis) {
+        Spec.After = millis;
+        return this;
+    }
+
+    public SpecBuilder buffer(int bytes) {
+        Spec.Buffer = bytes;
+        return this;
+    }
+
+    public SpecBuilder watch(boolean watch) {
+        Spec.Watch = watch;
+        return this;
+    }
+
+    public SpecBuilder rate(int perSecond) {
+        Spec.Rate = perSecond;
+        return this;
+    }
+
+    public SpecBuilder burst(int burst) {
+        Spec.Burst = burst;
+        return this;
+    }
+
+    public SpecBuilder sample(int oneIn) {
+        Spec.Sample = oneIn;
+        return this;
+    }
+
+    public SpecBuilder first(int first) {
+        Spec.First = first;
+        return this;
+    }
+
+    public SpecBuilder interval(long millis) {
+        Spec.Interval = millis;
+        return this;
+    }
+
+    public SpecBuilder perTag(boolean perTag) {
+        Spec.PerTag = perTag;
+        return this;
+    }
+
+    public SpecBuilder coalesce(long millis) {
+        Spec.Coalesce = millis;
+        return this;
+    }
+
+    public SpecBuilder json(boolean json) {
+        Spec.Json = json;
+        return this;
+    }
+
+    public SpecBuilder metrics(@NonNull String... tags) {
+        Spec.Metrics = tags;
+        return this;
+    }
+
+    public Spec build() {
+        return Spec;
+    }
+}
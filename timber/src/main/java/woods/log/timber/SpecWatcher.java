@@ -0,0 +1,110 @@
+package woods.log.timber;
+
+import android.os.FileObserver;
+import android.support.annotation.NonNull;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+
+/**
+ * Watches the spec file in log store, the spec is pinned to the tree once the file changes.
+ * The file is in the same JSON format as {@link Pin}.
+ */
+final class SpecWatcher extends FileObserver {
+
+    static final String SPEC_FILE = "timber.json";
+
+    private final static int MAX_SPEC_LENGTH = 16 * 1024;
+
+    private final static Charset UTF8 = Charset.forName("UTF-8");
+
+    private final Tree Tree;
+
+    private final File SpecFile;
+
+    /**
+     * Content of the file applied last time
+     */
+    private String Applied = null;
+
+
+    SpecWatcher(@NonNull String storedir, @NonNull Tree tree) {
+        super(storedir, CLOSE_WRITE | MOVED_TO);
+
+        Tree = tree;
+        SpecFile = new File(storedir, SPEC_FILE);
+    }
+
+    /**
+     * Apply the spec file if there is one, and then watch it.
+     */
+    void watch() {
+        reload();
+        startWatching();
+    }
+
+    @Override
+    public void onEvent(int event, String path) {
+        if (SPEC_FILE.equals(path)) {
+            reload();
+        }
+    }
+
+    private synchronized void reload() {
+        if (!SpecFile.isFile() || SpecFile.length() > MAX_SPEC_LENGTH) {
+            return;
+        }
+
+        String json;
+        try {
+            json = read(SpecFile);
+        } catch (IOException e) {
+            Timber.w("Could not read spec file: %s", SpecFile.getPath());
+            return;
+        }
+
+        if (json.equals(Applied)) {
+            return;
+        }
+
+        Spec spec;
+        try {
+            spec = Tools.parseTipString(json);
+        } catch (RuntimeException e) {
+            spec = null;
+        }
+
+        if (spec == null) {
+            Timber.w("Spec file ignored, unknown policy: %s", json);
+            return;
+        }
+
+        Applied = json;
+        Tree.pin(spec);
+
+        Timber.i("Spec applied from file: %s", json);
+    }
+
+    private String read(@NonNull File file) throws IOException {
+        InputStream input = new FileInputStream(file);
+        try {
+            byte[] bytes = new byte[(int) file.length()];
+            int n = 0;
+            while (n < bytes.length) {
+                int r = input.read(bytes, n, bytes.length - n);
+                if (r < 0) {
+                    break;
+                }
+                n += r;
+            }
+
+            return new String(bytes, 0, n, UTF8).trim();
+        } finally {
+            input.close();
+        }
+    }
+}
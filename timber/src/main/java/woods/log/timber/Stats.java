@@ -0,0 +1,162 @@
+package woods.log.timber;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * A snapshot of what logging costs, taken by {@link Timber#stats()}. Counts are since the
+ * process started, latencies are in nanoseconds and sampled.
+ */
+public final class Stats {
+
+    /**
+     * Logging calls by level, indexed by {@link Level#ordinal()}
+     */
+    public final long[] events;
+
+    /**
+     * Trees planted, in order of the forest
+     */
+    public final List<Branch> trees = new ArrayList<>();
+
+    /**
+     * Nanoseconds probing the caller
+     */
+    public final Histogram probe = new Histogram();
+
+    /**
+     * Nanoseconds formatting messages
+     */
+    public final Histogram format = new Histogram();
+
+    /**
+     * Nanoseconds handing events to sinks, queueing only for sinks isolated
+     */
+    public final Histogram write = new Histogram();
+
+    /**
+     * Nanoseconds of logging calls stalling the main thread, empty if not watching
+     */
+    public final Histogram stalls = new Histogram();
+
+    /**
+     * Lowest level dispatched to trees, raised by the governor under load
+     */
+    public final Level floor;
+
+
+    Stats() {
+        int floor = Timber.Floor;
+        this.floor = floor == 0 ? Level.V : Level.values()[floor];
+
+        events = new long[Rings.Events.length];
+        for (int i = 0; i < events.length; i++) {
+            events[i] = Rings.Events[i].sum();
+        }
+
+        probe.add(Rings.Probe);
+        format.add(Rings.Format);
+        write.add(Rings.Write);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("floor ").append(floor.name()).append("\nevents");
+        Level[] levels = Level.values();
+        for (int i = 0; i < events.length; i++) {
+            if (events[i] > 0) {
+                sb.append(' ').append(levels[i].name()).append('=').append(events[i]);
+            }
+        }
+
+        sb.append("\nprobe ").append(probe)
+                .append("\nformat ").append(format)
+                .append("\nwrite ").append(write);
+
+        if (stalls.count() > 0) {
+            sb.append("\nstalls ").append(stalls);
+        }
+
+        for (Branch branch : trees) {
+            sb.append('\n').append(branch);
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Gauges of a planted tree, -1 for what the tree does not tell.
+     */
+    public static final class Branch {
+
+        public final String name;
+
+        /**
+         * Events handed to the tree, -1 if it is not a sink
+         */
+        public long accepted = -1;
+
+        /**
+         * Events not loggable by the tree or not admitted, -1 if it is not a sink
+         */
+        public long filtered = -1;
+
+        /**
+         * Events queued in the tree
+         */
+        public long queued = -1;
+
+        /**
+         * Events dropped by the tree
+         */
+        public long dropped = -1;
+
+        /**
+         * Bytes written into files of each level, indexed by {@link Level#ordinal()},
+         * {@link Level#ALL} is the file of all levels. Null if the tree writes no file.
+         */
+        public long[] bytes = null;
+
+        /**
+         * Lines memo wrote per second since the last snapshot, -1 if the tree has no memo
+         */
+        public double lines = -1;
+
+        Branch(@NonNull String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(name);
+            append(sb, "accepted", accepted);
+            append(sb, "filtered", filtered);
+            append(sb, "queued", queued);
+            append(sb, "dropped", dropped);
+
+            if (lines >= 0) {
+                sb.append(" lines/s=").append(String.format("%.1f", lines));
+            }
+
+            if (bytes != null) {
+                Level[] levels = Level.values();
+                for (int i = 0; i < bytes.length; i++) {
+                    if (bytes[i] > 0) {
+                        sb.append(" bytes.").append(levels[i].name()).append('=').append(bytes[i]);
+                    }
+                }
+            }
+
+            return sb.toString();
+        }
+
+        private static void append(@NonNull StringBuilder sb, @NonNull String name, long value) {
+            if (value >= 0) {
+                sb.append(' ').append(name).append('=').append(value);
+            }
+        }
+    }
+}
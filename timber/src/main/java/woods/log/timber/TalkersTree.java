@@ -0,0 +1,297 @@
+package woods.log.timber;
+
+import android.support.annotation.NonNull;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+
+/**
+ * A profiler tree finds the noisiest call sites: events and characters each one logs are kept
+ * in a space-saving sketch of bounded size, and once every interval the top talkers are logged
+ * through the forest with tag "Talkers":
+ * <pre>
+ *     Top talkers of last 60000 ms. Cache.get&lt;Cache.java:42&gt;.chars=182004
+ *     Cache.get&lt;Cache.java:42&gt;.logs=5688 Api.fetch&lt;Api.java:7&gt;.chars=90112 ...
+ * </pre>
+ * Characters are those of the text lines {@link Wood} writes: header, tag, message and
+ * key-values, and the exception, its trace in full the first time and a reference later.
+ * Counts of call sites that come into a full sketch may be overestimated, by no more than
+ * the least count kept. It is a profiling mode, events are counted under a lock.
+ */
+public class TalkersTree extends Sink {
+
+    /**
+     * Tag of the records of top talkers
+     */
+    public static final String TAG = "Talkers";
+
+    private static final int DEFAULT_TOP = 10;
+
+    private static final long DEFAULT_INTERVAL = 60 * 1000;
+
+    /**
+     * Call sites kept in sketch for each one reported
+     */
+    private static final int SLOTS_PER_TOP = 8;
+
+    /**
+     * Characters of the 'threadtime' header ahead of tag: time, pid and tid in 5, and level,
+     * each followed by a space
+     */
+    private static final int HEADER = 18 + 1 + 5 + 1 + 5 + 1 + 1 + 1;
+
+    private final int Top;
+
+    private final long Interval;
+
+    private final Sketch Sketch;
+
+    /**
+     * Exceptions counted, as traces are written by wood
+     */
+    private final Fingerprints Fingerprints = new Fingerprints();
+
+    private final AtomicBoolean Reporting = new AtomicBoolean(false);
+
+    private volatile boolean Uprooted = false;
+
+    private long Since = System.currentTimeMillis();
+
+    private final Runnable Report = new Runnable() {
+        @Override
+        public void run() {
+            report();
+
+            if (!Uprooted) {
+                Sawmill.schedule(this, Interval);
+            } else {
+                Reporting.set(false);
+            }
+        }
+    };
+
+
+    public TalkersTree() {
+        this(DEFAULT_TOP, DEFAULT_INTERVAL);
+    }
+
+    /**
+     * @param top      call sites reported
+     * @param interval milliseconds between reports
+     */
+    public TalkersTree(int top, long interval) {
+        if (top <= 0 || interval <= 0) {
+            throw new AssertionError("Top and interval of talkers should be positive: "
+                    + top + ", " + interval);
+        }
+
+        Top = top;
+        Interval = interval;
+        Sketch = new Sketch(top * SLOTS_PER_TOP);
+    }
+
+    @Override
+    public void plant() {
+        Uprooted = false;
+
+        if (Reporting.compareAndSet(false, true)) {
+            Since = System.currentTimeMillis();
+            Sawmill.schedule(Report, Interval);
+        }
+    }
+
+    @Override
+    public void uproot() {
+        Uprooted = true;
+    }
+
+    /**
+     * Talkers are counted on every level, specs are ignored.
+     */
+    @Override
+    public void pin(@NonNull Spec spec) {
+    }
+
+    @Override
+    public boolean flush(long timeout) {
+        return true;
+    }
+
+    @Override
+    public boolean isLoggable(@NonNull Level level, String tag) {
+        return true;
+    }
+
+    /**
+     * Count the event and characters of its line on its call site.
+     */
+    @Override
+    public void log(@NonNull Event event) {
+        if (event.site == null) {
+            return;
+        }
+
+        String tag = event.what != null ? event.what : event.who;
+        long chars = HEADER + (tag != null ? tag.length() : 0) + 2 + event.text().length() + 1;
+        if (event.why != null) {
+            chars += Fingerprints.describe(event.why).length() + 1;
+        }
+
+        Sketch.add(event.site, chars);
+    }
+
+    /**
+     * Log top talkers since last report, nothing if there is none.
+     */
+    private synchronized void report() {
+        long now = System.currentTimeMillis();
+        long since = Since;
+        Since = now;
+
+        Slot[] top = Sketch.drain(Top);
+        if (top.length == 0) {
+            return;
+        }
+
+        Fields fields = new Fields();
+        for (Slot slot : top) {
+            String name = slot.Site.Class + "." + slot.Site.Method + slot.Site.Source;
+            fields.put(name + ".chars", slot.Chars);
+            fields.put(name + ".logs", slot.Events);
+        }
+
+        Event record = new Event();
+        record.who = TalkersTree.class.getSimpleName();
+        record.where = "report";
+        record.what = TAG;
+        record.pack = TalkersTree.class.getPackage().getName();
+        record.source = "<TalkersTree.java>";
+        record.when = now;
+        record.thread = Tools.getCurrentThreadName();
+        record.tid = Tools.getCurrentThreadId();
+        record.bind(Level.I, null);
+        record.bind("Top talkers of last %d ms.", new Object[]{now - since});
+        record.fields = fields;
+
+        Timber.emit(record);
+    }
+
+    static final class Slot {
+
+        Milieu.CallSite Site;
+
+        long Chars;
+
+        long Events;
+
+        /**
+         * Index in heap
+         */
+        int Position;
+    }
+
+    /**
+     * Space-saving sketch over characters: a call site not kept takes the slot of the least one,
+     * and its counts. Slots are kept in a min heap of characters.
+     */
+    static final class Sketch {
+
+        final Slot[] Heap;
+
+        private final HashMap<Milieu.CallSite, Slot> Index;
+
+        int Size = 0;
+
+        Sketch(int capacity) {
+            Heap = new Slot[capacity];
+            Index = new HashMap<>(capacity * 2);
+        }
+
+        synchronized void add(@NonNull Milieu.CallSite site, long chars) {
+            Slot slot = Index.get(site);
+
+            if (slot == null) {
+                if (Size < Heap.length) {
+                    slot = new Slot();
+                    slot.Position = Size;
+                    Heap[Size++] = slot;
+                } else {
+                    slot = Heap[0];
+                    Index.remove(slot.Site);
+                }
+
+                slot.Site = site;
+                Index.put(site, slot);
+            }
+
+            slot.Chars += chars;
+            slot.Events++;
+            down(slot.Position);
+            up(slot.Position);
+        }
+
+        /**
+         * Take the top call sites by characters, the sketch starts over.
+         */
+        synchronized Slot[] drain(int top) {
+            Slot[] slots = Arrays.copyOf(Heap, Size);
+            Arrays.sort(slots, new Comparator<Slot>() {
+                @Override
+                public int compare(Slot a, Slot b) {
+                    return a.Chars > b.Chars ? -1 : (a.Chars == b.Chars ? 0 : 1);
+                }
+            });
+
+            Arrays.fill(Heap, 0, Size, null);
+            Index.clear();
+            Size = 0;
+
+            return slots.length > top ? Arrays.copyOf(slots, top) : slots;
+        }
+
+        private void up(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (Heap[parent].Chars <= Heap[i].Chars) {
+                    return;
+                }
+
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void down(int i) {
+            while (true) {
+                int least = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+
+                if (left < Size && Heap[left].Chars < Heap[least].Chars) {
+                    least = left;
+                }
+                if (right < Size && Heap[right].Chars < Heap[least].Chars) {
+                    least = right;
+                }
+                if (least == i) {
+                    return;
+                }
+
+                swap(i, least);
+                i = least;
+            }
+        }
+
+        private void swap(int i, int j) {
+            Slot a = Heap[i];
+            Slot b = Heap[j];
+            Heap[i] = b;
+            Heap[j] = a;
+            a.Position = j;
+            b.Position = i;
+        }
+    }
+}
@@ -1,11 +1,16 @@
 package woods.log.timber;
 
 
+import android.os.Looper;
 import android.support.annotation.NonNull;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
+import io.reactivex.functions.Function;
+import io.reactivex.plugins.RxJavaPlugins;
+
 
 /**
  * This code is modified copy from JakeWharton's timber project
@@ -28,7 +33,36 @@ public class Timber {
 
     private static ThreadLocal<String> Tags = new ThreadLocal<>();
 
-    private static ThreadLocal<Milieu> Milieus = new ThreadLocal<>();
+    private static ThreadLocal<Event> Milieus = new ThreadLocal<>();
+
+    private static ThreadLocal<Record> Records = new ThreadLocal<>();
+
+    private static ThreadLocal<Scope> Scopes = new ThreadLocal<>();
+
+    /**
+     * Whether scopes are handed over to tasks scheduled by RxJava
+     */
+    private static volatile boolean Propagating = false;
+
+    /**
+     * Watchdog of logging calls on main thread, null if not watching
+     */
+    private static volatile Watchdog Watchdog = null;
+
+    /**
+     * Governor shedding low levels under load, null if not governing
+     */
+    private static Governor Governor = null;
+
+    /**
+     * Ordinal of the lowest level dispatched to trees, raised by governor, 0 lets all go
+     */
+    static volatile int Floor = 0;
+
+    /**
+     * The only uncaught exception handler installed by Timber, null if not supervising
+     */
+    private static volatile WoodsUncaughtExceptionHandler Supervisor = null;
 
 
     /**
@@ -38,169 +72,109 @@ public class Timber {
 
         @Override
         public void v(@NonNull String message, Object... args) {
-            int n = forestAsArray.length;
-            if (n > 0) {
+            Tree[] forest = forestAsArray;
+            if (forest != null && forest.length > 0 && !Timber.shed(Level.V)) {
                 Timber.probe(Level.V, null);
-
-                Tree[] forest = forestAsArray;
-                //noinspection ForLoopReplaceableByForEach
-                for (int i = 0; i < n; i++) {
-                    forest[i].v(message, args);
-                }
+                Timber.dispatch(forest, Level.V, null, message, args);
             }
         }
 
         @Override
         public void v(@NonNull Throwable e, @NonNull String message, Object... args) {
-            int n = forestAsArray.length;
-            if (n > 0) {
+            Tree[] forest = forestAsArray;
+            if (forest != null && forest.length > 0 && !Timber.shed(Level.V)) {
                 Timber.probe(Level.V, e);
-
-                Tree[] forest = forestAsArray;
-                //noinspection ForLoopReplaceableByForEach
-                for (int i = 0; i < n; i++) {
-                    forest[i].v(e, message, args);
-                }
+                Timber.dispatch(forest, Level.V, e, message, args);
             }
         }
 
         @Override
         public void d(@NonNull String message, Object... args) {
-            int n = forestAsArray.length;
-            if (n > 0) {
+            Tree[] forest = forestAsArray;
+            if (forest != null && forest.length > 0 && !Timber.shed(Level.D)) {
                 Timber.probe(Level.D, null);
-
-                Tree[] forest = forestAsArray;
-                //noinspection ForLoopReplaceableByForEach
-                for (int i = 0; i < n; i++) {
-                    forest[i].d(message, args);
-                }
+                Timber.dispatch(forest, Level.D, null, message, args);
             }
         }
 
         @Override
         public void d(@NonNull Throwable e, @NonNull String message, Object... args) {
-            int n = forestAsArray.length;
-            if (n > 0) {
+            Tree[] forest = forestAsArray;
+            if (forest != null && forest.length > 0 && !Timber.shed(Level.D)) {
                 Timber.probe(Level.D, e);
-
-                Tree[] forest = forestAsArray;
-                //noinspection ForLoopReplaceableByForEach
-                for (int i = 0; i < n; i++) {
-                    forest[i].d(e, message, args);
-                }
+                Timber.dispatch(forest, Level.D, e, message, args);
             }
         }
 
         @Override
         public void i(@NonNull String message, Object... args) {
-            int n = forestAsArray.length;
-            if (n > 0) {
+            Tree[] forest = forestAsArray;
+            if (forest != null && forest.length > 0 && !Timber.shed(Level.I)) {
                 Timber.probe(Level.I, null);
-
-                Tree[] forest = forestAsArray;
-                //noinspection ForLoopReplaceableByForEach
-                for (int i = 0; i < n; i++) {
-                    forest[i].i(message, args);
-                }
+                Timber.dispatch(forest, Level.I, null, message, args);
             }
         }
 
         @Override
         public void i(@NonNull Throwable e, @NonNull String message, Object... args) {
-            int n = forestAsArray.length;
-            if (n > 0) {
+            Tree[] forest = forestAsArray;
+            if (forest != null && forest.length > 0 && !Timber.shed(Level.I)) {
                 Timber.probe(Level.I, e);
-
-                Tree[] forest = forestAsArray;
-                //noinspection ForLoopReplaceableByForEach
-                for (int i = 0; i < n; i++) {
-                    forest[i].i(e, message, args);
-                }
+                Timber.dispatch(forest, Level.I, e, message, args);
             }
         }
 
         @Override
         public void w(@NonNull String message, Object... args) {
-            int n = forestAsArray.length;
-            if (n > 0) {
+            Tree[] forest = forestAsArray;
+            if (forest != null && forest.length > 0 && !Timber.shed(Level.W)) {
                 Timber.probe(Level.W, null);
-
-                Tree[] forest = forestAsArray;
-                //noinspection ForLoopReplaceableByForEach
-                for (int i = 0; i < n; i++) {
-                    forest[i].w(message, args);
-                }
+                Timber.dispatch(forest, Level.W, null, message, args);
             }
         }
 
         @Override
         public void w(@NonNull Throwable e, @NonNull String message, Object... args) {
-            int n = forestAsArray.length;
-            if (n > 0) {
-                Timber.probe(Level.W, null);
-
-                Tree[] forest = forestAsArray;
-                //noinspection ForLoopReplaceableByForEach
-                for (int i = 0; i < n; i++) {
-                    forest[i].w(e, message, args);
-                }
+            Tree[] forest = forestAsArray;
+            if (forest != null && forest.length > 0 && !Timber.shed(Level.W)) {
+                Timber.probe(Level.W, e);
+                Timber.dispatch(forest, Level.W, e, message, args);
             }
         }
 
         @Override
         public void e(@NonNull String message, Object... args) {
-            int n = forestAsArray.length;
-            if (n > 0) {
+            Tree[] forest = forestAsArray;
+            if (forest != null && forest.length > 0 && !Timber.shed(Level.E)) {
                 Timber.probe(Level.E, null);
-
-                Tree[] forest = forestAsArray;
-                //noinspection ForLoopReplaceableByForEach
-                for (int i = 0; i < n; i++) {
-                    forest[i].e(message, args);
-                }
+                Timber.dispatch(forest, Level.E, null, message, args);
             }
         }
 
         @Override
         public void e(@NonNull Throwable e, @NonNull String message, Object... args) {
-            int n = forestAsArray.length;
-            if (n > 0) {
+            Tree[] forest = forestAsArray;
+            if (forest != null && forest.length > 0 && !Timber.shed(Level.E)) {
                 Timber.probe(Level.E, e);
-
-                Tree[] forest = forestAsArray;
-                //noinspection ForLoopReplaceableByForEach
-                for (int i = 0; i < n; i++) {
-                    forest[i].e(e, message, args);
-                }
+                Timber.dispatch(forest, Level.E, e, message, args);
             }
         }
 
         @Override
         public void wtf(@NonNull String message, Object... args) {
-            int n = forestAsArray.length;
-            if (n > 0) {
+            Tree[] forest = forestAsArray;
+            if (forest != null && forest.length > 0 && !Timber.shed(Level.A)) {
                 Timber.probe(Level.A, null);
-
-                Tree[] forest = forestAsArray;
-                //noinspection ForLoopReplaceableByForEach
-                for (int i = 0; i < n; i++) {
-                    forest[i].wtf(message, args);
-                }
+                Timber.dispatch(forest, Level.A, null, message, args);
             }
         }
 
         @Override
         public void wtf(@NonNull Throwable e, @NonNull String message, Object... args) {
-            int n = forestAsArray.length;
-            if (n > 0) {
+            Tree[] forest = forestAsArray;
+            if (forest != null && forest.length > 0 && !Timber.shed(Level.A)) {
                 Timber.probe(Level.A, e);
-
-                Tree[] forest = forestAsArray;
-                //noinspection ForLoopReplaceableByForEach
-                for (int i = 0; i < n; i++) {
-                    forest[i].wtf(e, message, args);
-                }
+                Timber.dispatch(forest, Level.A, e, message, args);
             }
         }
 
@@ -218,6 +192,24 @@ public class Timber {
         public void pin(@NonNull Spec spec) {
 
         }
+
+        @Override
+        public boolean flush(long timeout) {
+            Tree[] forest = forestAsArray;
+            if (forest == null) {
+                return true;
+            }
+
+            boolean durable = true;
+            long deadline = System.currentTimeMillis() + timeout;
+            //noinspection ForLoopReplaceableByForEach
+            for (int i = 0; i < forest.length; i++) {
+                long left = Math.max(0, deadline - System.currentTimeMillis());
+                durable &= forest[i].flush(left);
+            }
+
+            return durable;
+        }
     };
 
     private Timber() {
@@ -308,6 +300,186 @@ public class Timber {
         astree().wtf(e, message, args);
     }
 
+    /**
+     * Start a structured logging call of the level, key-values are added to the record returned.
+     */
+    public static Record at(@NonNull Level level) {
+        Record record = Records.get();
+        if (record == null) {
+            record = new Record();
+            Records.set(record);
+        }
+
+        return record.at(level);
+    }
+
+    /**
+     * Log the record, called by {@link Record#log(String)} only so the caller is probed right.
+     */
+    static void record(@NonNull Record record, @NonNull String message) {
+        Tree[] forest = forestAsArray;
+        if (forest != null && forest.length > 0 && !Timber.shed(record.Level)) {
+            Timber.probe(record.Level, record.Cause);
+            Timber.dispatch(forest, record.Level, record.Cause, message, null, record.Fields);
+        }
+    }
+
+    /**
+     * Open a timing span, its duration is logged with level D on close.
+     */
+    public static Span span(@NonNull String name) {
+        return span(Level.D, name);
+    }
+
+    /**
+     * Open a timing span, its duration is logged with the level on close. It does nothing
+     * if no tree logs the level.
+     */
+    public static Span span(@NonNull Level level, @NonNull String name) {
+        if (!isLoggable(level)) {
+            return Span.NONE;
+        }
+
+        return Span.open(name, level, null);
+    }
+
+    /**
+     * Open a timing span, its duration is recorded in the histogram in nanoseconds on close,
+     * not logged.
+     */
+    public static Span span(@NonNull String name, @NonNull Histogram histogram) {
+        return Span.open(name, null, histogram);
+    }
+
+    /**
+     * Log the closed span, called by {@link Span#close()} only so the caller is probed right.
+     */
+    static void span(@NonNull Span span) {
+        Tree[] forest = forestAsArray;
+        if (forest != null && forest.length > 0 && !Timber.shed(span.Level)) {
+            Timber.probe(span.Level, null);
+            Timber.dispatch(forest, span.Level, null, span.Name, null, span.Fields);
+        }
+    }
+
+    /**
+     * Whether any planted tree may log the level, trees other than sinks are taken as they do.
+     */
+    static boolean isLoggable(@NonNull Level level) {
+        Tree[] forest = forestAsArray;
+        if (forest == null || level.ordinal() < Floor) {
+            return false;
+        }
+
+        //noinspection ForLoopReplaceableByForEach
+        for (int i = 0; i < forest.length; i++) {
+            Tree tree = forest[i];
+            if (!(tree instanceof Sink) || ((Sink) tree).isLoggable(level, null)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Take a snapshot of what logging costs: logging calls by level, latencies of probing,
+     * formatting and handing events to sinks, and gauges of each tree planted.
+     */
+    public static Stats stats() {
+        Stats stats = new Stats();
+
+        Watchdog watchdog = Watchdog;
+        if (watchdog != null) {
+            stats.stalls.add(watchdog.Stalls);
+        }
+
+        Tree[] forest = forestAsArray;
+        if (forest != null) {
+            for (Tree tree : forest) {
+                Stats.Branch branch;
+                if (tree instanceof Sink) {
+                    Sink sink = (Sink) tree;
+                    branch = new Stats.Branch(sink.name());
+                    branch.accepted = sink.Accepted.sum();
+                    branch.filtered = sink.Filtered.sum();
+                    sink.measure(branch);
+                } else {
+                    branch = new Stats.Branch(tree.getClass().getSimpleName());
+                }
+                stats.trees.add(branch);
+            }
+        }
+
+        return stats;
+    }
+
+    /**
+     * Watch logging calls on the main thread, a call dispatched to trees longer than the budget
+     * is a stall. Call sites stalled are logged as warnings once a second, durations of stalls
+     * go into {@link Stats#stalls}.
+     *
+     * @param budget milliseconds a logging call may take, 0 to stop watching
+     */
+    public static void watchdog(long budget) {
+        Looper looper = Looper.getMainLooper();
+        if (budget <= 0 || looper == null) {
+            Watchdog = null;
+            return;
+        }
+
+        Watchdog = new Watchdog(budget * 1000000, looper.getThread());
+    }
+
+    /**
+     * Shed low levels under load. While logs per second or the fullest queue of sinks are over
+     * the thresholds, the lowest level dispatched to trees is raised a level at a time, up to W.
+     * It is lowered again once load stays under half the thresholds. Each change is logged.
+     *
+     * @param rate     logs per second taken before shedding, 0 for no limit
+     * @param pressure percent of the fullest queue before shedding, 0 for no limit
+     */
+    public static synchronized void govern(int rate, int pressure) {
+        if (Governor != null) {
+            Governor.retire();
+            Governor = null;
+        }
+
+        if (rate > 0 || pressure > 0) {
+            Governor = new Governor(rate, pressure);
+            Governor.start();
+        }
+    }
+
+    /**
+     * Percent of the fullest queue of sinks planted.
+     */
+    static int pressure() {
+        Tree[] forest = forestAsArray;
+        if (forest == null) {
+            return 0;
+        }
+
+        int pressure = 0;
+        for (Tree tree : forest) {
+            if (tree instanceof Sink) {
+                pressure = Math.max(pressure, ((Sink) tree).pressure());
+            }
+        }
+
+        return pressure;
+    }
+
+    /**
+     * Wait until logs queued in all planted trees are durable.
+     *
+     * @param timeout maximum milliseconds to wait
+     * @return true if all queued logs are durable before timeout
+     */
+    public static boolean flush(long timeout) {
+        return astree().flush(timeout);
+    }
+
     /**
      * Set one-time tag for use on the next logging call.
      */
@@ -316,20 +488,230 @@ public class Timber {
         return astree();
     }
 
+    /**
+     * Get the logging context of this thread, attached to events logged on it.
+     */
+    public static Scope scope() {
+        Scope scope = Scopes.get();
+        return scope == null ? Scope.EMPTY : scope;
+    }
+
+    /**
+     * Set the key in logging context of this thread until the exit returned is closed.
+     */
+    public static Scope.Exit enter(@NonNull String key, String value) {
+        return enter(scope().with(key, value));
+    }
+
+    /**
+     * Enter the logging context on this thread until the exit returned is closed, for handing
+     * a scope over to another thread.
+     */
+    public static Scope.Exit enter(@NonNull Scope scope) {
+        Scope prior = scope();
+        Scopes.set(scope);
+        return new Scope.Exit(prior);
+    }
+
+    static void restore(@NonNull Scope scope) {
+        Scopes.set(scope);
+    }
+
+    /**
+     * Hand logging context of the thread over to tasks scheduled by RxJava, so it goes along
+     * {@code subscribeOn} and {@code observeOn}. A schedule handler set before is kept.
+     */
+    public static synchronized void propagate() {
+        if (Propagating) {
+            return;
+        }
+
+        final Function<? super Runnable, ? extends Runnable> prior =
+                RxJavaPlugins.getScheduleHandler();
+        RxJavaPlugins.setScheduleHandler(new Function<Runnable, Runnable>() {
+            @Override
+            public Runnable apply(Runnable task) throws Exception {
+                Runnable run = prior == null ? task : prior.apply(task);
+
+                final Scope scope = Scopes.get();
+                if (scope == null || scope == Scope.EMPTY) {
+                    return run;
+                }
+
+                final Runnable wrapped = run;
+                return new Runnable() {
+                    @Override
+                    public void run() {
+                        Scope entered = Scopes.get();
+                        Scopes.set(scope);
+                        try {
+                            wrapped.run();
+                        } finally {
+                            Scopes.set(entered);
+                        }
+                    }
+                };
+            }
+        });
+
+        Propagating = true;
+    }
+
+    /**
+     * Whether the level is shed by the governor. A logging call shed is only counted, for the
+     * rate governor samples, the caller is never probed. The tag set for it is cleared.
+     */
+    private static boolean shed(@NonNull Level level) {
+        if (level.ordinal() >= Floor) {
+            return false;
+        }
+
+        if (Tags.get() != null) {
+            Tags.set(null);
+        }
+
+        Rings.Events[level.ordinal()].add(Thread.currentThread().getId());
+        return true;
+    }
+
     /**
      * Probe the milieu for use on the next logging call.
      * @param level
      * @param e
      */
     public static void probe(Level level, Throwable e) {
-        Milieu milieu = new Milieu(Tags.get());
-
-        if (Milieus.get() == null) {
+        if (Supervisor == null) {
             Timber.supervise();
         }
 
-        milieu.bind(level, e);
-        Milieus.set(milieu);
+        Event milieu = Milieus.get();
+        if (milieu == null) {
+            milieu = new Event();
+            Milieus.set(milieu);
+        }
+
+        String tag = Tags.get();
+        if (tag != null) {
+            Tags.set(null);
+        }
+
+        boolean timed = (++milieu.ticks & (Rings.SAMPLE - 1)) == 0;
+        long start = timed ? System.nanoTime() : 0;
+
+        milieu.probe(tag, level, e);
+        milieu.scope = scope();
+        milieu.timed = timed;
+
+        if (timed) {
+            Rings.Probe.record(System.nanoTime() - start);
+        }
+        Rings.Events[level.ordinal()].add(milieu.tid);
+    }
+
+    /**
+     * Hand the probed event to every tree, sinks take the event, other trees are called by level.
+     */
+    private static void dispatch(@NonNull Tree[] forest, @NonNull Level level, Throwable e,
+                                 @NonNull String message, Object[] args) {
+        dispatch(forest, level, e, message, args, null);
+    }
+
+    /**
+     * Hand the probed event with key-values to every tree, other trees than sinks take them
+     * as text.
+     */
+    private static void dispatch(@NonNull Tree[] forest, @NonNull Level level, Throwable e,
+                                 @NonNull String message, Object[] args, Fields fields) {
+        // Logging calls are shed before probed, events emitted or replayed are shed here
+        if (level.ordinal() < Floor) {
+            return;
+        }
+
+        Event event = Milieus.get();
+        event.bind(message, args);
+        event.fields = fields;
+
+        Watchdog watchdog = Watchdog;
+        long since = watchdog != null && Thread.currentThread() == watchdog.Main
+                ? System.nanoTime() : 0;
+
+        if (fields != null || (event.scope != null && event.scope.size() > 0)) {
+            boolean sinks = true;
+            //noinspection ForLoopReplaceableByForEach
+            for (int i = 0; i < forest.length; i++) {
+                sinks &= forest[i] instanceof Sink;
+            }
+
+            if (!sinks) {
+                message = "%s";
+                args = new Object[]{event.text()};
+            }
+        }
+
+        //noinspection ForLoopReplaceableByForEach
+        for (int i = 0; i < forest.length; i++) {
+            Tree tree = forest[i];
+            if (tree instanceof Sink) {
+                Sink sink = (Sink) tree;
+                if (!sink.isLoggable(level, event.what) || !sink.admit(event)) {
+                    sink.Filtered.add(event.tid);
+                } else if (event.timed) {
+                    sink.Accepted.add(event.tid);
+                    long start = System.nanoTime();
+                    sink.log(event);
+                    Rings.Write.record(System.nanoTime() - start);
+                } else {
+                    sink.Accepted.add(event.tid);
+                    sink.log(event);
+                }
+            } else if (e == null) {
+                switch (level) {
+                    case V: tree.v(message, args); break;
+                    case D: tree.d(message, args); break;
+                    case I: tree.i(message, args); break;
+                    case W: tree.w(message, args); break;
+                    case E: tree.e(message, args); break;
+                    default: tree.wtf(message, args); break;
+                }
+            } else {
+                switch (level) {
+                    case V: tree.v(e, message, args); break;
+                    case D: tree.d(e, message, args); break;
+                    case I: tree.i(e, message, args); break;
+                    case W: tree.w(e, message, args); break;
+                    case E: tree.e(e, message, args); break;
+                    default: tree.wtf(e, message, args); break;
+                }
+            }
+        }
+
+        if (since != 0) {
+            watchdog.check(event, System.nanoTime() - since);
+        }
+    }
+
+    /**
+     * Hand an event held somewhere to the trees, as if it is logged on this thread.
+     */
+    static void replay(@NonNull Tree[] forest, @NonNull Event event) {
+        Event milieu = Milieus.get();
+        Milieus.set(event);
+
+        try {
+            dispatch(forest, event.how, event.why, event.format, event.args, event.fields);
+        } finally {
+            Milieus.set(milieu);
+        }
+    }
+
+    /**
+     * Hand an event made somewhere to the planted trees, as if it is logged on this thread.
+     */
+    static void emit(@NonNull Event event) {
+        Tree[] forest = forestAsArray;
+        if (forest != null && forest.length > 0) {
+            replay(forest, event);
+        }
     }
 
     /**
@@ -346,6 +728,19 @@ public class Timber {
         return milieu;
     }
 
+    /**
+     * The event probed for the logging call.
+     */
+    static Event event() {
+        Event event = Milieus.get();
+
+        if (event == null) {
+            throw new AssertionError("probe() have not been called before logging.");
+        }
+
+        return event;
+    }
+
     /**
      * A view into Timber's planted trees as tree itself. This can be used for injecting logger
      * instance rather than using static methods or to facilitate testing.
@@ -381,13 +776,36 @@ public class Timber {
 
     }
 
+    /**
+     * Replace a planted tree with trees already planted, nothing is done if it is uprooted.
+     */
+    static void transplant(@NonNull Tree planted, @NonNull Tree[] trees) {
+        synchronized (Forest) {
+            int i = Forest.indexOf(planted);
+            if (i < 0) {
+                return;
+            }
+
+            Forest.remove(i);
+            Forest.addAll(i, Arrays.asList(trees));
+
+            forestAsArray = Forest.toArray(new Tree[Forest.size()]);
+        }
+    }
+
     /**
      * Remove planted tree.
      */
     public static void uproot(@NonNull Tree tree) {
+        Tree planted = tree;
+
         // Remove the tree from forest
         synchronized (Forest) {
-            if (!Forest.remove(tree)) {
+            if (!Forest.contains(tree)) {
+                planted = isolatedOf(tree);
+            }
+
+            if (planted == null || !Forest.remove(planted)) {
                 throw new AssertionError("Cannot uproot tree which is not planted: " + tree);
             }
         }
@@ -395,7 +813,20 @@ public class Timber {
         forestAsArray = Forest.toArray(new Tree[Forest.size()]);
 
         // And then tell the tree. This order should be obeyed.
-        tree.uproot();
+        planted.uproot();
+    }
+
+    /**
+     * Find the bulkhead planted for the tree.
+     */
+    private static Tree isolatedOf(@NonNull Tree tree) {
+        for (Tree planted : Forest) {
+            if (planted instanceof Bulkhead && ((Bulkhead) planted).Sink == tree) {
+                return planted;
+            }
+        }
+
+        return null;
     }
 
     /**
@@ -407,33 +838,85 @@ public class Timber {
         for (Tree tree : trees) {
             uproot(tree);
         }
+
+        unsupervise();
     }
 
     /**
-     * Remove all planted trees.
+     * Install uncaught exception handler for all threads, only once until unsupervise().
      */
     public static void supervise() {
-        WoodsUncaughtExceptionHandler handler = new WoodsUncaughtExceptionHandler();
+        synchronized (Forest) {
+            if (Supervisor != null) {
+                return;
+            }
+
+            WoodsUncaughtExceptionHandler handler = new WoodsUncaughtExceptionHandler();
 
-        handler.setDefaultHandler(Thread.getDefaultUncaughtExceptionHandler());
-        Thread.setDefaultUncaughtExceptionHandler(handler);
+            handler.setDefaultHandler(Thread.getDefaultUncaughtExceptionHandler());
+            Thread.setDefaultUncaughtExceptionHandler(handler);
+
+            Supervisor = handler;
+        }
+    }
+
+    /**
+     * Remove the uncaught exception handler installed by supervise().
+     */
+    public static void unsupervise() {
+        synchronized (Forest) {
+            WoodsUncaughtExceptionHandler handler = Supervisor;
+            if (handler == null) {
+                return;
+            }
+
+            if (Thread.getDefaultUncaughtExceptionHandler() == handler) {
+                Thread.setDefaultUncaughtExceptionHandler(handler.defaultHandler);
+            } else {
+                // Someone chained after us, can not be taken out, just let exceptions pass through
+                handler.retire();
+            }
+
+            Supervisor = null;
+        }
     }
 
     static class WoodsUncaughtExceptionHandler implements Thread.UncaughtExceptionHandler {
 
+        /**
+         * Maximum milliseconds to wait for logs being written before process goes down
+         */
+        private static final long FLUSH_TIMEOUT = 1200;
+
         private Thread.UncaughtExceptionHandler defaultHandler = null;
 
+        private volatile boolean retired = false;
+
         void setDefaultHandler(Thread.UncaughtExceptionHandler handler) {
             defaultHandler = handler;
         }
 
+        void retire() {
+            retired = true;
+        }
+
         public void uncaughtException(Thread thread, Throwable e) {
-            if (e != null) {
+            if (retired) {
+                if (defaultHandler != null) {
+                    defaultHandler.uncaughtException(thread, e);
+                }
+            } else if (e != null) {
                 Timber.e(e, e.getMessage());
 
-                try {
-                    Thread.sleep(1200);
-                } catch (InterruptedException e1) {
+                Tree[] forest = forestAsArray;
+                //noinspection ForLoopReplaceableByForEach
+                for (int i = 0, n = (forest != null ? forest.length : 0); i < n; i++) {
+                    if (forest[i] instanceof Sink) {
+                        ((Sink) forest[i]).crash();
+                    }
+                }
+
+                if (!Timber.flush(FLUSH_TIMEOUT)) {
                     Timber.w("Timber messages may not been write to file.");
                 }
 
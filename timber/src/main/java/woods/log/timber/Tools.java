@@ -5,18 +5,22 @@ import android.content.Context;
 import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
 import android.os.Build;
+import android.os.Environment;
 import android.support.annotation.NonNull;
 
 import com.squareup.moshi.JsonAdapter;
 import com.squareup.moshi.Moshi;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.lang.reflect.Field;
 import java.util.HashMap;
+import java.util.IllegalFormatException;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -130,6 +134,25 @@ public class Tools {
         return sb.toString();
     }
 
+    /**
+     * Format message with args, message is returned as is if args are not formative.
+     *
+     * @param message message or format string
+     * @param args    format args
+     * @return formatted message
+     */
+    static public String format(@NonNull String message, Object... args) {
+        if (args != null && args.length > 0) {
+            try {
+                message = String.format(message, args);
+            } catch (IllegalFormatException e) {
+                message = message + "(Args are not formative.)" ;
+            }
+        }
+
+        return message;
+    }
+
     /**
      * Print Exception's stacktrace to string
      *
@@ -141,14 +164,9 @@ public class Tools {
 
         Writer writer = new StringWriter();
         PrintWriter printWriter = new PrintWriter(writer);
+        // Causes are printed as "Caused by:" along with the trace
         t.printStackTrace(printWriter);
 
-        Throwable cause = t.getCause();
-        while (cause != null) {
-            cause.printStackTrace(printWriter);
-            cause = cause.getCause();
-        }
-
         String result = writer.toString();
         sb.append(result);
         printWriter.close();
@@ -156,6 +174,83 @@ public class Tools {
         return sb.toString();
     }
 
+    /**
+     * Hash Exception by its type and frames, causes included.
+     *
+     * @param t Throwable to hash
+     * @return Same for exceptions thrown from the same path
+     */
+    static public long fingerprintException(@NonNull Throwable t) {
+        final int MAX_CAUSES = 16;
+
+        long hash = 0xcbf29ce484222325L;
+        Throwable cause = t;
+        for (int i = 0; cause != null && i < MAX_CAUSES; i++) {
+            hash = (hash ^ cause.getClass().getName().hashCode()) * 0x100000001b3L;
+
+            for (StackTraceElement element : cause.getStackTrace()) {
+                hash = (hash ^ element.hashCode()) * 0x100000001b3L;
+            }
+
+            if (cause.getCause() == cause) {
+                break;
+            }
+            cause = cause.getCause();
+        }
+
+        return hash;
+    }
+
+    /**
+     * Locate the directory where log files of the package are stored.
+     *
+     * @param store package name the directory named after
+     * @return path of the log store
+     */
+    static public String sitingStore(@NonNull String store) {
+        StringBuilder pathbuilder = new StringBuilder();
+        if (Environment.getExternalStorageState().equals(Environment.MEDIA_MOUNTED)) {
+            pathbuilder.append(Environment.getExternalStorageDirectory().getPath())
+                    .append(File.separator).append("Android")
+                    .append(File.separator).append("data");
+        } else {
+            pathbuilder.append(Environment.getDataDirectory().getPath())
+                    .append(File.separator).append("data");
+        }
+
+        return pathbuilder.append(File.separator).append(store).toString();
+    }
+
+    /**
+     * Find out package name of the process by calling 'ps'.
+     *
+     * @param id process id
+     * @return package name of the process
+     */
+    static public String matchPackageName(@NonNull Integer id) throws Exception {
+        final Pattern pattern =
+                Pattern.compile("\\b([a-z][a-z0-9_]*(?:\\.[a-z0-9_]+)+[0-9a-z_])\\b");
+
+        String ps = "ps " + id;
+
+        Process process = Runtime.getRuntime().exec(ps);
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream()), 1024);
+
+        String line = reader.readLine();
+
+        while(line != null) {
+            Matcher matcher = pattern.matcher(line);
+            if (matcher.find()) {
+                return matcher.group(1);
+            }
+
+            line = reader.readLine();
+        }
+
+        throw new AssertionError("Can not invoke ps call, using pid instead.");
+    }
+
     /**
      * Create directory to store the log files
      *
@@ -199,7 +294,8 @@ public class Tools {
     }
 
     /**
-     * Clear file in specified directory (to flat the land for new forest)
+     * Clear file in specified directory (to flat the land for new forest), the spec file
+     * watched in it is kept however old
      *
      * @param path the directory to clear
      */
@@ -213,6 +309,10 @@ public class Tools {
             }
 
             for (File file : dir.listFiles()) {
+                if (SpecWatcher.SPEC_FILE.equals(file.getName())) {
+                    continue;
+                }
+
                 long dt = millis - file.lastModified();
                 if (0 > dt || dt > (hours * ONE_HOUR_MILLIS)) {
                     if (file.isDirectory()) {
@@ -271,16 +371,19 @@ public class Tools {
     }
 
     public static Spec parseTipString(String json) {
-        Moshi moshi = new Moshi.Builder()
-                .build();
-        JsonAdapter<Spec> jsonAdapter = moshi.adapter(Spec.class);
-
         try {
-            return jsonAdapter.fromJson(json);
+            return SpecParser.ADAPTER.fromJson(json);
         } catch (IOException e) {
             Timber.e(e, "Unknown policy: %s.", json);
         }
         return null;
     }
-}
 
+    /**
+     * Holds the adapter of {@link Spec}, Moshi is not loaded until a spec is parsed.
+     */
+    private static final class SpecParser {
+
+        static final JsonAdapter<Spec> ADAPTER = new Moshi.Builder().build().adapter(Spec.class);
+    }
+}
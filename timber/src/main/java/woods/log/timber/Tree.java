@@ -20,6 +20,14 @@ public interface Tree {
      */
     void pin(@NonNull Spec spec);
 
+    /**
+     * Wait until logs queued in the tree are durable.
+     *
+     * @param timeout maximum milliseconds to wait
+     * @return true if all queued logs are durable before timeout
+     */
+    boolean flush(long timeout);
+
     /**
      * Log verbose message with optional format args.
      */
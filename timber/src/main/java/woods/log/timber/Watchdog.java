@@ -0,0 +1,158 @@
+package woods.log.timber;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+
+/**
+ * Watches logging calls on the main thread, a call dispatched longer than the budget is a stall.
+ * Stalls are counted by call site, and once a second the call sites stalled are logged as
+ * warnings on the sawmill, each one as if it is logged at the call site:
+ * <pre>
+ *     Logging stalled main thread 3 times, max 4.210 ms.
+ * </pre>
+ * Durations of all stalls are kept for {@link Timber#stats()}.
+ */
+final class Watchdog {
+
+    /**
+     * Format of the warnings, such events are told by it
+     */
+    static final String STALLED = "Logging stalled main thread %d times, max %.3f ms.";
+
+    private static final long REPORT_DELAY = 1000;
+
+    /**
+     * Call sites tracked at most, stalls of call sites beyond are only kept in histogram
+     */
+    private static final int MAX_KEYS = 256;
+
+    /**
+     * Nanoseconds a logging call may take
+     */
+    final long Budget;
+
+    final Thread Main;
+
+    /**
+     * Nanoseconds of stalls since created
+     */
+    final Histogram Stalls = new Histogram();
+
+    private final ConcurrentHashMap<Milieu.CallSite, Stall> Sites = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean Reporting = new AtomicBoolean(false);
+
+    private final Runnable Report = new Runnable() {
+        @Override
+        public void run() {
+            Reporting.set(false);
+            report();
+        }
+    };
+
+
+    /**
+     * @param budget nanoseconds a logging call may take
+     * @param main   thread watched
+     */
+    Watchdog(long budget, @NonNull Thread main) {
+        Budget = budget;
+        Main = main;
+    }
+
+    /**
+     * Check the logging call of the event took, it is a stall if over budget.
+     */
+    void check(@NonNull Event event, long elapsed) {
+        if (elapsed <= Budget) {
+            return;
+        }
+
+        Stalls.record(elapsed);
+
+        Milieu.CallSite site = event.site;
+        if (site == null) {
+            return;
+        }
+
+        Stall stall = Sites.get(site);
+        if (stall == null) {
+            if (Sites.size() >= MAX_KEYS) {
+                return;
+            }
+
+            stall = new Stall(site, event.what);
+            Stall prior = Sites.putIfAbsent(site, stall);
+            if (prior != null) {
+                stall = prior;
+            }
+        }
+
+        synchronized (stall) {
+            stall.Count++;
+            stall.Max = Math.max(stall.Max, elapsed);
+        }
+
+        if (Reporting.compareAndSet(false, true)) {
+            Sawmill.schedule(Report, REPORT_DELAY);
+        }
+    }
+
+    /**
+     * Log a warning for each call site stalled since last report.
+     */
+    private void report() {
+        for (Stall stall : Sites.values()) {
+            long count;
+            long max;
+            synchronized (stall) {
+                count = stall.Count;
+                max = stall.Max;
+                stall.Count = 0;
+                stall.Max = 0;
+            }
+
+            if (count == 0) {
+                continue;
+            }
+
+            Milieu.CallSite site = stall.Site;
+            Event warning = new Event();
+            warning.site = site;
+            warning.who = site.Class;
+            warning.where = site.Method;
+            warning.pack = site.Package;
+            warning.source = site.Source;
+            warning.what = stall.Tag;
+            warning.when = System.currentTimeMillis();
+            warning.thread = Main.getName();
+            warning.tid = Tools.getCurrentThreadId();
+            warning.bind(Level.W, null);
+            warning.bind(STALLED, new Object[]{count, max / 1e6});
+
+            Timber.emit(warning);
+        }
+    }
+
+    /**
+     * Stalls of a call site since last report, guarded by itself.
+     */
+    private static final class Stall {
+
+        final Milieu.CallSite Site;
+
+        final String Tag;
+
+        long Count = 0;
+
+        long Max = 0;
+
+        Stall(@NonNull Milieu.CallSite site, String tag) {
+            Site = site;
+            Tag = tag;
+        }
+    }
+}
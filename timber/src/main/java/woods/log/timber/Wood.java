@@ -1,23 +1,30 @@
 package woods.log.timber;
 
-import android.os.Environment;
 import android.support.annotation.NonNull;
 import android.util.Log;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.IllegalFormatException;
+import java.util.Date;
+import java.util.HashSet;
 import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -32,12 +39,46 @@ import io.reactivex.schedulers.Schedulers;
 /**
  * A facade for handling logging calls.
  */
-public class Wood implements Tree {
+public class Wood extends Sink {
 
-//    private final static String ACCURATETIME = "MM-dd_HH-mm-ss-SSS";
+    private final static String ACCURATETIME = "MM-dd HH:mm:ss.SSS";
     private final static String BRIEFTIME = "MM-dd_HH-mm";
     private final static int MAX_LOG_LENGTH = 2048;
 
+    /**
+     * Lines held for trigger at most, older ones are dropped even if within Before
+     */
+    private final static int MAX_BACKLOG_LINES = 1024;
+
+    /**
+     * Days of a year before each month, February 29 is taken as March 1
+     */
+    private final static int[] DAYS_BEFORE_MONTH =
+            {0, 31, 59, 90, 120, 151, 181, 212, 243, 273, 304, 334};
+
+    /**
+     * Milliseconds memo may be behind logcat before its pressure is full
+     */
+    private final static long MAX_LAG = 1000;
+
+    /**
+     * Chars of logcat output read by memo in a turn
+     */
+    private final static int SLICE_CHARS = 16 * 1024;
+
+    /**
+     * Milliseconds memo waits on sawmill when there is nothing to read
+     */
+    private final static long IDLE_DELAY = 100;
+
+    /**
+     * Tag of the marker line written to logcat to know that memo has caught up, each memo
+     * numbers its own
+     */
+    private final static String BARRIER_TAG = "Timber-Barrier";
+
+    private final static AtomicInteger Barriers = new AtomicInteger(0);
+
     private final static int VERBOSE = Level.V.Priority();
     private final static int DEBUG = Level.D.Priority();
     private final static int WARN = Level.W.Priority();
@@ -55,20 +96,50 @@ public class Wood implements Tree {
     private final static int S = Level.S.ordinal();
 
     /**
-     * Logging policy that should be applied in order to control
+     * Logging policy that should be applied in order to control, swapped as a whole on pin
      */
-    private Spec MemoSpec = null;
+    private volatile Setting Setting = new Setting(null, null, null);
+
+    private Disposable Disposable = null;
 
     /**
-     * Logging policy that should be applied in order to control
+     * Directory of log files, null until store is ready
      */
-    private boolean[] Valves = {false, false, false, true, true, true, true};
+    private String Store = null;
 
-    private Disposable Disposable = null;
+    /**
+     * Watcher of spec file in store, null if not watching
+     */
+    private SpecWatcher SpecWatcher = null;
 
-    private MemoThread MemoThread = null;
+    private Memo Memo = null;
 
-    private Level miniLevel = Level.W;
+    /**
+     * Exceptions logged by the tree, traces are written in full only once
+     */
+    private final Fingerprints Fingerprints = new Fingerprints();
+
+    /**
+     * Off-heap buffer logs are written through, null if memo reads logcat
+     */
+    private volatile MemoBuffer Buffer = null;
+
+    /**
+     * Bytes memo wrote into files of each level, characters when reading logcat
+     */
+    private final AtomicLongArray Bytes = new AtomicLongArray(Level.values().length);
+
+    /**
+     * Lines memo wrote
+     */
+    private final AtomicLong Lines = new AtomicLong(0);
+
+    /**
+     * Lines and time of the last measure, for lines per second
+     */
+    private long MeasuredLines = 0;
+
+    private long MeasuredAt = System.currentTimeMillis();
 
     /**
      * Called when tree is added into forest.
@@ -89,7 +160,10 @@ public class Wood implements Tree {
             }
         }
 
+        stopWatcher();
         stopMemo();
+
+        Setting.retire();
     }
 
     /**
@@ -97,155 +171,152 @@ public class Wood implements Tree {
      */
     @Override
     public void pin(@NonNull Spec spec) {
-        if (spec.Filters != null) {
-            for (Level filter : spec.Filters) {
-                Valves[filter.ordinal()] = true;
-
-                if(miniLevel.Priority() > filter.Priority()) {
-                    miniLevel = filter;
-                }
+        synchronized (this) {
+            // Memo drains the buffer it is started with, a memo reading logcat goes on with it.
+            // Trigger captures lines read back from logcat, buffer is not taken along with it
+            if (spec.Buffer > 0 && spec.Trigger == null && Buffer == null && Memo == null) {
+                Buffer = new MemoBuffer(spec.Buffer);
             }
         }
 
-        Level level = (spec.Level != null ? spec.Level : miniLevel);
-
-        for (int i = level.ordinal(), n = Valves.length; i < n; i++) {
-            Valves[i] = true;
+        if (spec.Trigger != null && Buffer != null) {
+            Timber.w("Trigger is not applied, logs are written through buffer as they come.");
         }
 
-        MemoSpec = spec;
-    }
+        Setting old = Setting;
+        Setting = new Setting(spec, Limiter.of(spec, this), Coalescer.of(spec, this));
 
-    /**
-     * Log verbose message with optional format args.
-     */
-    @Override
-    public void v(@NonNull String message, Object... args) {
-        if (Valves[V]) {
-            log(VERBOSE, null, message, args);
-        }
-    }
+        old.retire();
 
-    /**
-     * Log verbose exception and message with optional format args.
-     */
-    @Override
-    public void v(@NonNull Throwable t, @NonNull String message, Object... args) {
-        if (Valves[V]) {
-            log(VERBOSE, t, message, args);
-        }
+        reconfigureMemo();
     }
 
     /**
-     * Log debug message with optional format args.
+     * Wait until memo has written logs to file, memo not started yet is waited for as well.
+     * Nothing is durable until memo runs.
      */
     @Override
-    public void d(@NonNull String message, Object... args) {
-        if (Valves[D]) {
-            log(DEBUG, null, message, args);
+    public boolean flush(long timeout) {
+        if (Setting.Spec == null) {
+            // No file is written without spec
+            return true;
         }
+
+        long deadline = System.currentTimeMillis() + timeout;
+        Memo memo = awaitMemo(deadline);
+        return memo != null && memo.flush(Math.max(0, deadline - System.currentTimeMillis()));
     }
 
     /**
-     * Log debug exception and message with optional format args.
+     * Wait until memo is started, like when store is not ready yet.
+     *
+     * @return null if memo is not started before deadline
      */
-    @Override
-    public void d(@NonNull Throwable t, @NonNull String message, Object... args) {
-        if (Valves[D]) {
-            log(DEBUG, t, message, args);
+    private synchronized Memo awaitMemo(long deadline) {
+        while (Memo == null) {
+            long left = deadline - System.currentTimeMillis();
+            if (left <= 0) {
+                return null;
+            }
+
+            try {
+                wait(left);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
         }
+
+        return Memo;
     }
 
     /**
-     * Log an info message with optional format args.
+     * Whether logs of the level is let go.
      */
     @Override
-    public void i(@NonNull String message, Object... args) {
-        if (Valves[I]) {
-            log(INFO, null, message, args);
-        }
+    public boolean isLoggable(@NonNull Level level, String tag) {
+        boolean[] valves = Setting.Valves;
+
+        int i = level.ordinal();
+        return i < valves.length && valves[i];
     }
 
     /**
-     * Log an info exception and message with optional format args.
+     * Percent of the buffer memo has not drained yet, or when memo reads logcat, how far it is
+     * behind in percent of {@link #MAX_LAG}.
      */
     @Override
-    public void i(@NonNull Throwable t, @NonNull String message, Object... args) {
-        if (Valves[I]) {
-            log(INFO, t, message, args);
+    int pressure() {
+        MemoBuffer buffer = Buffer;
+        if (buffer != null) {
+            return buffer.pressure();
         }
-    }
 
-    /**
-     * Log warning message with optional format args.
-     */
-    @Override
-    public void w(@NonNull String message, Object... args) {
-        if (Valves[W]) {
-            log(WARN, null, message, args);
+        Memo memo;
+        synchronized (this) {
+            memo = Memo;
         }
+
+        return memo != null ? memo.pressure() : 0;
     }
 
     /**
-     * Log warning exception and message with optional format args.
+     * Bytes written into each level file, lines written per second since last measured, and
+     * events dropped by the buffer.
      */
     @Override
-    public void w(@NonNull Throwable t, @NonNull String message, Object... args) {
-        if (Valves[W]) {
-            log(WARN, t, message, args);
+    synchronized void measure(@NonNull Stats.Branch branch) {
+        long[] bytes = new long[Bytes.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = Bytes.get(i);
         }
-    }
+        branch.bytes = bytes;
 
-    /**
-     * Log an error message with optional format args.
-     */
-    @Override
-    public void e(@NonNull String message, Object... args) {
-        if (Valves[E]) {
-            log(ERROR, null, message, args);
+        long now = System.currentTimeMillis();
+        long lines = Lines.get();
+        branch.lines = now > MeasuredAt ? (lines - MeasuredLines) * 1000.0 / (now - MeasuredAt) : 0;
+        MeasuredLines = lines;
+        MeasuredAt = now;
+
+        MemoBuffer buffer = Buffer;
+        if (buffer != null) {
+            branch.dropped = buffer.dropped();
         }
     }
 
     /**
-     * Log an error exception and message with optional format args.
+     * Log the event, an assertion is thrown with level A.
      */
     @Override
-    public void e(@NonNull Throwable t, @NonNull String message, Object... args) {
-        if (Valves[E]) {
-            log(ERROR, t, message, args);
+    public void log(@NonNull Event event) {
+        if (event.how == Level.A) {
+            throw new AssertionError(event.message(), event.why);
         }
+
+        log(event.how.Priority(), event);
     }
 
     /**
-     * Log an assert message with optional format args.
+     * Metrics tags are skipped, then rules of the spec applied, on the calling thread.
+     * Summaries of the rules are logged to the wood as they are.
      */
     @Override
-    public void wtf(@NonNull String message, Object... args) {
-        if (Valves[A]) {
-            throw new AssertionError(format(message, args));
+    boolean admit(@NonNull Event event) {
+        if (event.how == Level.A) {
+            return true;
         }
-    }
 
-    /**
-     * Log an assert exception and message with optional format args.
-     */
-    @Override
-    public void wtf(@NonNull Throwable t, @NonNull String message, Object... args) {
-        if (Valves[A]) {
-            throw new AssertionError(format(message, args), t);
+        Setting setting = Setting;
+        if (setting.Metrics != null
+                && setting.Metrics.contains(event.what != null ? event.what : event.who)) {
+            return false;
         }
-    }
 
-    private String format(String message, Object... args) {
-        if (args.length > 0) {
-            try {
-                message = String.format(message, args);
-            } catch (IllegalFormatException e) {
-                message = message + "(Args are not formative.)" ;
-            }
+        if (setting.Limiter != null && !setting.Limiter.allow(event)) {
+            return false;
         }
 
-        return message;
+        return setting.Coalescer == null || setting.Coalescer.admit(event);
     }
 
     private String truncateNames(@NonNull String name) {
@@ -256,51 +327,52 @@ public class Wood implements Tree {
     }
 
     /**
-     * Get tag ready and Convert message & args to log string.
+     * Get tag ready and Convert event to log string.
      *
      * @param priority The priority/type of this log message
-     * @param t        An exception to log.
-     * @param message  The message you would like logged.
-     * @param args     Arguments used to format the message string.
+     * @param m        The event to log.
      */
-    private void log(int priority, Throwable t, @NonNull String message, Object... args) {
-        String text = format(message, args);
-
-        if (t != null) {
-            StringBuilder tb = new StringBuilder(text);
-            String stacktrace = Tools.serializeException(t);
-            tb.append("\n").append(stacktrace);
-            text = tb.toString();
-        }
-
-        Milieu m = Timber.get();
-        if (m == null) {
-            Timber.e("Internal failure, could not get Milieu.");
-            return;
-        }
+    private void log(int priority, @NonNull Event m) {
+        Spec spec = Setting.Spec;
+        String exception = (m.why != null ? Fingerprints.describe(m.why) : null);
 
         String tag;
         if (m.what != null)
             tag = m.what;
-        else if (MemoSpec == null)
+        else if (spec == null)
             tag = m.who;
         else {
             // "[Class]@[Method]:[Thread]"
             StringBuilder tb = new StringBuilder();
-            if (MemoSpec.Class != null && m.who.contains(MemoSpec.Class)) {
-                tb.append('_').append(truncateNames(MemoSpec.Class)).append('_');
+            if (spec.Class != null && m.who.contains(spec.Class)) {
+                tb.append('_').append(truncateNames(spec.Class)).append('_');
             } else
                 tb.append(m.who);
 
-            if (MemoSpec.Method != null && m.where.contains(MemoSpec.Method))
-                tb.append('@').append('_').append(truncateNames(MemoSpec.Method)).append('_');
+            if (spec.Method != null && m.where.contains(spec.Method))
+                tb.append('@').append('_').append(truncateNames(spec.Method)).append('_');
 
-            if (MemoSpec.Thread != null && m.thread.contains(MemoSpec.Thread))
-                tb.append(':').append('_').append(truncateNames(MemoSpec.Thread)).append('_');
+            if (spec.Thread != null && m.thread.contains(spec.Thread))
+                tb.append(':').append('_').append(truncateNames(spec.Thread)).append('_');
 
             tag = tb.toString();
         }
 
+        String text;
+        if (spec != null && spec.Json) {
+            text = JsonEncoder.encode(m, tag, exception);
+        } else if (exception != null) {
+            text = m.text() + "\n" + exception;
+        } else {
+            text = m.text();
+        }
+
+        MemoBuffer buffer = Buffer;
+        if (buffer != null) {
+            buffer.put(m.how.ordinal(), isMatched(spec, m), spec != null && spec.Json, m.when,
+                    m.tid, tag, text);
+        }
+
         if (text.length() < MAX_LOG_LENGTH) {
             Log.println(priority, tag, text);
         } else {
@@ -308,6 +380,19 @@ public class Wood implements Tree {
         }
     }
 
+    /**
+     * Whether the log is from class, method and thread specified, as the memo pattern does.
+     */
+    private boolean isMatched(Spec spec, @NonNull Milieu m) {
+        if (spec == null) {
+            return true;
+        }
+
+        return (spec.Class == null || m.who.contains(spec.Class))
+                && (spec.Method == null || m.where.contains(spec.Method))
+                && (spec.Thread == null || m.thread.contains(spec.Thread));
+    }
+
     /**
      * Break up {@code message} into maximum-length chunks (if needed) and send to either
      * {@link Log#println(int, String, String) Log.println()} or
@@ -329,19 +414,59 @@ public class Wood implements Tree {
         }
     }
 
+    /**
+     * Milliseconds since new year a line of logcat in 'threadtime' format is logged at.
+     *
+     * @return -1 if the line does not start with time
+     */
+    static long stampOf(@NonNull String line) {
+        if (line.length() < ACCURATETIME.length() || line.charAt(2) != '-'
+                || line.charAt(5) != ' ' || line.charAt(8) != ':' || line.charAt(11) != ':'
+                || line.charAt(14) != '.') {
+            return -1;
+        }
+
+        int month = digitsOf(line, 0, 2);
+        int day = digitsOf(line, 3, 2);
+        int hour = digitsOf(line, 6, 2);
+        int minute = digitsOf(line, 9, 2);
+        int second = digitsOf(line, 12, 2);
+        int millis = digitsOf(line, 15, 3);
+        if (month < 1 || month > 12 || day < 1 || hour < 0 || minute < 0 || second < 0
+                || millis < 0) {
+            return -1;
+        }
+
+        long days = DAYS_BEFORE_MONTH[month - 1] + day - 1;
+        return (((days * 24 + hour) * 60 + minute) * 60 + second) * 1000 + millis;
+    }
+
+    private static int digitsOf(@NonNull String s, int start, int n) {
+        int value = 0;
+        for (int i = start; i < start + n; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+
+        return value;
+    }
+
     private void launchWorker() {
         Single.just(android.os.Process.myPid())
-                .observeOn(Schedulers.newThread())
+                .observeOn(Schedulers.from(Sawmill.executor()))
                 .map(new Function<Integer, String>() {
                     @Override
                     public String apply(Integer pid) throws Exception {
-                        return matchPackageName(pid);
+                        return Tools.matchPackageName(pid);
                     }
                 })
                 .map(new Function<String, String>() {
                     @Override
                     public String apply(String pkgname) throws Exception {
-                        return sitingStore(pkgname);
+                        return Tools.sitingStore(pkgname);
                     }
                 })
                 .subscribe(new SingleObserver<String>() {
@@ -352,10 +477,7 @@ public class Wood implements Tree {
 
                     @Override
                     public void onSuccess(String storedir) {
-                        if (makeStore(storedir)) {
-                            startMemo(storedir);
-                        }
-
+                        ready(storedir);
                         Disposable = null;
                     }
 
@@ -366,18 +488,14 @@ public class Wood implements Tree {
                 });
     }
 
-    private String sitingStore(@NonNull String store) {
-        StringBuilder pathbuilder = new StringBuilder();
-        if (Environment.getExternalStorageState().equals(Environment.MEDIA_MOUNTED)) {
-            pathbuilder.append(Environment.getExternalStorageDirectory().getPath())
-                    .append(File.separator).append("Android")
-                    .append(File.separator).append("data");
-        } else {
-            pathbuilder.append(Environment.getDataDirectory().getPath())
-                    .append(File.separator).append("data");
+    /**
+     * Start memo and watcher with the setting pinned, once the store is found.
+     */
+    void ready(@NonNull String storedir) {
+        if (makeStore(storedir)) {
+            startMemo(storedir);
+            startWatcher(storedir);
         }
-
-        return pathbuilder.append(File.separator).append(store).toString();
     }
 
     private boolean makeStore(@NonNull String storedir) {
@@ -391,47 +509,62 @@ public class Wood implements Tree {
         return true;
     }
 
-    private void startMemo(@NonNull String storedir) {
-        if (MemoSpec == null) {
+    private synchronized void startMemo(@NonNull String storedir) {
+        Store = storedir;
+
+        Setting setting = Setting;
+        if (setting.Spec == null || Memo != null) {
             return;
         }
 
-        if (MemoThread == null) {
-            MemoThread = new MemoThread(storedir);
-        }
+        Memo = new Memo(storedir, Buffer);
+        Memo.start(setting.MiniLevel, setting.Spec);
 
-        // Thread is null by default
-        MemoThread.startThread(miniLevel, MemoSpec);
+        notifyAll();
     }
 
-    private void stopMemo() {
-        if (MemoThread != null) {
-            MemoThread.stopThread();
+    /**
+     * Apply the setting to memo in place, memo is started if it is not yet.
+     */
+    private synchronized void reconfigureMemo() {
+        if (Store == null) {
+            // Memo will be started with the latest setting when store is ready
+            return;
         }
-    }
 
-    private String matchPackageName(@NonNull Integer id) throws Exception {
-        final Pattern pattern =
-                Pattern.compile("\\b([a-z][a-z0-9_]*(?:\\.[a-z0-9_]+)+[0-9a-z_])\\b");
+        if (Memo == null) {
+            startMemo(Store);
+            return;
+        }
 
-        String ps = "ps " + id;
+        Setting setting = Setting;
+        Memo.reconfigure(setting.MiniLevel, setting.Spec);
+    }
 
-        Process process = Runtime.getRuntime().exec(ps);
-        BufferedReader reader = new BufferedReader(
-                new InputStreamReader(process.getInputStream()), 1024);
+    private synchronized void startWatcher(@NonNull String storedir) {
+        Spec spec = Setting.Spec;
+        if (spec == null || !spec.Watch || SpecWatcher != null) {
+            return;
+        }
 
-        String line = reader.readLine();
+        SpecWatcher = new SpecWatcher(storedir, this);
+        SpecWatcher.watch();
+    }
 
-        while(line != null) {
-            Matcher matcher = pattern.matcher(line);
-            if (matcher.find()) {
-                return matcher.group(1);
-            }
+    private synchronized void stopWatcher() {
+        if (SpecWatcher != null) {
+            SpecWatcher.stopWatching();
+            SpecWatcher = null;
+        }
+    }
 
-            line = reader.readLine();
+    private synchronized void stopMemo() {
+        if (Memo != null) {
+            Memo.stop();
         }
 
-        throw new AssertionError("Can not invoke ps call, using pid instead.");
+        Store = null;
+        Memo = null;
     }
 
     private String generatePaperName(@NonNull String path, @NonNull String options) {
@@ -447,11 +580,106 @@ public class Wood implements Tree {
         return name_builder.toString();
     }
 
-    private final class MemoThread extends Thread {
+    /**
+     * Immutable snapshot of the spec pinned, swapped as a whole.
+     */
+    private static final class Setting {
+
+        final Spec Spec;
+
+        /**
+         * Levels let go
+         */
+        final boolean[] Valves;
+
+        /**
+         * Lowest level memo reads from logcat
+         */
+        final Level MiniLevel;
+
+        /**
+         * Rate limiting and sampling rules, null if there is none
+         */
+        final Limiter Limiter;
+
+        /**
+         * Coalescer of repeated messages, null if not coalescing
+         */
+        final Coalescer Coalescer;
+
+        /**
+         * Tags aggregated into metrics and not written, null if there is none
+         */
+        final Set<String> Metrics;
+
+        Setting(Spec spec, Limiter limiter, Coalescer coalescer) {
+            boolean[] valves = {false, false, false, true, true, true, true};
+            Level mini = Level.W;
+
+            if (spec != null && (spec.Filters != null || spec.Level != null)) {
+                valves = new boolean[valves.length];
+
+                if (spec.Filters != null) {
+                    for (Level filter : spec.Filters) {
+                        if (filter.ordinal() < valves.length) {
+                            valves[filter.ordinal()] = true;
+                        }
+
+                        if (mini.Priority() > filter.Priority()) {
+                            mini = filter;
+                        }
+                    }
+                }
+
+                Level level = (spec.Level != null ? spec.Level : mini);
+
+                for (int i = level.ordinal(), n = valves.length; i < n; i++) {
+                    valves[i] = true;
+                }
+
+                if (spec.Trigger != null && spec.Level != null
+                        && spec.Level.Priority() < mini.Priority()) {
+                    // Logs below the trigger should be read from logcat to be held in backlog
+                    mini = spec.Level;
+                }
+            }
+
+            Spec = spec;
+            Valves = valves;
+            MiniLevel = mini;
+            Limiter = limiter;
+            Coalescer = coalescer;
+            Metrics = spec != null && spec.Metrics != null
+                    ? new HashSet<>(Arrays.asList(spec.Metrics)) : null;
+        }
+
+        /**
+         * Summaries pending in rules are told, the setting is being replaced.
+         */
+        void retire() {
+            if (Limiter != null) {
+                Limiter.retire();
+            }
+
+            if (Coalescer != null) {
+                Coalescer.retire();
+            }
+        }
+    }
+
+    final class Memo implements Runnable {
 
         private int Pid;
 
-        private Spec MemoSpec;
+        /**
+         * Spec applied by memo, only replaced by memo itself
+         */
+        private volatile Spec MemoSpec;
+
+        /**
+         * Spec to be applied by memo on next line
+         */
+        private final AtomicReference<Spec> PendingSpec = new AtomicReference<>();
 
         private String Store;
 
@@ -462,103 +690,519 @@ public class Wood implements Tree {
 
         volatile Pattern MatchPattern = null;
 
+        /**
+         * Level logcat process is running with
+         */
+        private Level LogcatLevel = null;
+
+        /**
+         * Levels to be written into their own files
+         */
+        private boolean[] Filtered = new boolean[A];
+
+        /**
+         * The latest line read from logcat, logcat is resumed from it when restarted
+         */
+        private volatile String LastLine = null;
+
+        /**
+         * The latest line of the old logcat process, lines the new one replays up to it are
+         * written already and dropped, null if none
+         */
+        private String SkipUntil = null;
+
+        /**
+         * Pattern to pick up level and tag of a logcat line in 'threadtime' format
+         */
+        private final Pattern LevelPattern =
+                Pattern.compile("^\\S+\\s+\\S+\\s+\\d+\\s+\\d+\\s+([VDIWEAF])\\s+([^:]*?)\\s*: ");
+
+        /**
+         * Lines held in memory waiting for trigger, in a ring, with the time each is logged at
+         */
+        private final String[] Backlog = new String[MAX_BACKLOG_LINES];
+
+        private final long[] BacklogTimes = new long[MAX_BACKLOG_LINES];
+
+        /**
+         * Time of the latest line captured, lines without time go with it
+         */
+        private long CaptureStamp = 0;
+
+        /**
+         * Milliseconds the latest line read is behind the clock while logcat has more to read,
+         * 0 once caught up
+         */
+        private volatile long Lag = 0;
+
+        private final SimpleDateFormat Clock = new SimpleDateFormat(ACCURATETIME, Locale.CHINA);
+
+        private int BacklogHead = 0;
+
+        private int BacklogSize = 0;
+
+        /**
+         * Lines logged before then are persisted directly
+         */
+        private long CaptureUntil = 0;
+
+        /**
+         * Tag of barriers of this memo, memos of other trees read them too
+         */
+        private final String BarrierTag = BARRIER_TAG + "-" + Barriers.incrementAndGet();
+
+        /**
+         * Sequence of the latest barrier issued
+         */
+        private final AtomicLong BarrierIssued = new AtomicLong(0);
+
+        /**
+         * Sequence of the latest barrier passed by memo
+         */
+        private long BarrierPassed = 0;
+
+        private final Object BarrierLock = new Object();
+
+        /**
+         * Whether memo is scheduled on sawmill, until files are released
+         */
+        private volatile boolean Running = false;
+
+        private volatile boolean Stopped = false;
+
+        /**
+         * Whether files are opened by memo
+         */
+        private boolean Opened = false;
+
+        /**
+         * Logcat process being read and its output, only touched by memo
+         */
+        private Process Reading = null;
+
+        private Reader Reader = null;
+
+        private final char[] Chars = new char[4096];
+
+        /**
+         * JSON line split by logcat, waiting for the rest, with its tag and first logcat line
+         */
+        private final StringBuilder JsonPart = new StringBuilder();
+
+        private String JsonPartTag = null;
+
+        private String JsonPartLine = null;
+
+        /**
+         * Line not yet ended in output read
+         */
+        private final StringBuilder Partial = new StringBuilder();
+
 
         /**
          * Nothing to write with logging level WTF
          */
         private BufferedWriter[] Writers = new BufferedWriter[A];
 
+        /**
+         * Files written by channel when draining off-heap buffer
+         */
+        private FileChannel[] Channels = new FileChannel[A];
+
+        /**
+         * Channels of levels filtered, the ones buffer drains into
+         */
+        private FileChannel[] ActiveChannels = new FileChannel[A];
+
+        private final MemoBuffer Buffer;
+
 
-        MemoThread(@NonNull String storedir) {
+        Memo(@NonNull String storedir, MemoBuffer buffer) {
             Store = storedir;
+            Buffer = buffer;
         }
 
-        void startThread(@NonNull Level level, @NonNull Spec spec) {
-            if (MemoSpec != null)
-                return;
+        void start(@NonNull Level level, @NonNull Spec spec) {
+            Pid = Tools.getHostProcessId();
 
-            MemoSpec = new Spec();
+            applySpec(memoSpecOf(level, spec));
 
-            MemoSpec.Level = level;
+            if (Buffer == null) {
+                String[] cli = buildCliCommand(MemoSpec.Level, Pid, null);
+                try {
+                    Proc = Runtime.getRuntime().exec(cli);
+                    LogcatLevel = MemoSpec.Level;
+                } catch (IOException e) {
+                    Timber.e(e, "Run cli failed: %s", Arrays.toString(cli));
+                    return;
+                }
+            }
 
-            if (spec.Class != null)
-                MemoSpec.Class = "\\w*" + truncateNames(spec.Class) + "\\w*";
-            else
-                MemoSpec.Class = "\\w+";
+            Running = true;
+            Sawmill.execute(this);
+        }
 
-            if (spec.Method != null)
-                MemoSpec.Method = "@\\w*" + truncateNames(spec.Method) + "\\w*";
-            else
-                MemoSpec.Method = "";
+        /**
+         * Apply the spec and write into the writers given instead of files, lines are handed
+         * to {@link #readLine(String)} rather than read from logcat. For benchmarks.
+         */
+        void attach(@NonNull Level level, @NonNull Spec spec, @NonNull BufferedWriter[] writers) {
+            Pid = Tools.getHostProcessId();
+            applySpec(memoSpecOf(level, spec));
+            Writers = writers;
+            Opened = true;
+        }
 
-            if (spec.Thread != null)
-                MemoSpec.Thread = ":\\w*" + truncateNames(spec.Thread) + "\\w*";
-            else
-                MemoSpec.Thread = "";
+        /**
+         * Apply new spec without stopping memo. Files are kept open, logcat is restarted from
+         * the latest line read if level changes.
+         */
+        void reconfigure(@NonNull Level level, @NonNull Spec spec) {
+            PendingSpec.set(memoSpecOf(level, spec));
 
-            Pid = Tools.getHostProcessId();
+            if (Buffer == null && Proc != null && LogcatLevel != level) {
+                restartLogcat(level);
+            }
+        }
 
-            MatchPattern = buildPattern(String.valueOf(Pid),
-                    MemoSpec.Class + MemoSpec.Method + MemoSpec.Thread);
+        /**
+         * Write a barrier into logcat and wait for memo passing it, logs before the barrier are
+         * written to file then. Nothing is written if memo is not running.
+         */
+        boolean flush(long timeout) {
+            if (!Running) {
+                return false;
+            }
 
-            String cli = buildCliCommand(MemoSpec.Level, Pid);
-            try {
-                Proc = Runtime.getRuntime().exec(cli);
-                start();
-            } catch (IOException e) {
-                Timber.e(e, "Run cli failed: %s", cli);
+            if (Buffer != null) {
+                return Buffer.awaitDrained(timeout);
             }
+
+            long seq = BarrierIssued.incrementAndGet();
+            Log.println(MemoSpec.Level.Priority(), BarrierTag, String.valueOf(seq));
+
+            long deadline = System.currentTimeMillis() + timeout;
+            synchronized (BarrierLock) {
+                while (BarrierPassed < seq) {
+                    long left = deadline - System.currentTimeMillis();
+                    if (left <= 0 || !Running) {
+                        return false;
+                    }
+
+                    try {
+                        BarrierLock.wait(left);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return false;
+                    }
+                }
+            }
+
+            return true;
         }
 
-        void stopThread() {
-            interrupt();
+        void stop() {
+            Stopped = true;
             if (Proc != null) {
                 Proc.destroy();
             }
             Proc = null;
         }
 
+        /**
+         * A turn of memo on sawmill, reads or drains a slice and then gives the thread away.
+         * Memo is scheduled again at once if there is more to do, otherwise after a while.
+         */
         @Override
         public void run() {
+            if (!Opened) {
+                createWriters();
+                Opened = true;
+            }
 
-            createWriters();
+            if (PendingSpec.get() != null) {
+                applySpec(PendingSpec.getAndSet(null));
+            }
 
-            try {
-                InputStream input = Proc.getInputStream();
-                BufferedReader mReader = new BufferedReader(new InputStreamReader(input), 4096);
-
-                while (!isInterrupted()) {
-                    String line = mReader.readLine();
-                    if (line == null) {
-                        try {
-                            /*
-                             * Sleep is the corner case, the memo thread should be always waiting
-                             * process output stream in normal case.
-                             */
-                            sleep(600);
-                        } catch (InterruptedException e) {
-                            interrupt();
+            boolean more = false;
+            if (!Stopped) {
+                try {
+                    more = (Buffer != null ? drainBuffer() : readLines());
+                } catch (IOException e) {
+                    /*
+                     * Error reading in the logcat process' output stream, this is usually caused
+                     * by process being destroyed. Go on with the new process if logcat is
+                     * restarted, otherwise close file output.
+                     * CAN'T do any log since the tree have been uprooted.
+                     */
+                    if (Buffer != null || Proc == Reading) {
+                        Stopped = true;
+                    } else {
+                        more = true;
+                    }
+                }
+            }
+
+            if (Stopped) {
+                finish();
+                return;
+            }
+
+            if (Buffer == null) {
+                measureLag(more, System.currentTimeMillis());
+            }
+
+            Sawmill.schedule(this, more ? 0 : IDLE_DELAY);
+        }
+
+        /**
+         * Measure how far memo is behind logcat by time of the latest line read, a line without
+         * time leaves it as it is.
+         */
+        void measureLag(boolean more, long now) {
+            String line = LastLine;
+            if (!more || line == null) {
+                Lag = 0;
+                return;
+            }
+
+            long stamp = stampOf(line);
+            if (stamp >= 0) {
+                Lag = Math.max(0, stampOf(Clock.format(new Date(now))) - stamp);
+            }
+        }
+
+        int pressure() {
+            return (int) Math.min(100, Lag * 100 / MAX_LAG);
+        }
+
+        /**
+         * Read a slice of output from the logcat process, never blocks.
+         *
+         * @return true if there may be more output
+         */
+        private boolean readLines() throws IOException {
+            Process proc = Proc;
+            if (proc != Reading) {
+                // Go on with the new process if logcat is restarted
+                Reading = proc;
+                SkipUntil = LastLine;
+                Reader = (proc != null ? new InputStreamReader(proc.getInputStream()) : null);
+                Partial.setLength(0);
+            }
+
+            if (Reader == null) {
+                Stopped = true;
+                return false;
+            }
+
+            int budget = SLICE_CHARS;
+            while (budget > 0 && Reader.ready()) {
+                int n = Reader.read(Chars, 0, Math.min(Chars.length, budget));
+                if (n < 0) {
+                    break;
+                }
+                budget -= n;
+
+                int start = 0;
+                for (int i = 0; i < n; i++) {
+                    if (Chars[i] == '\n') {
+                        Partial.append(Chars, start, i - start);
+                        int end = Partial.length();
+                        if (end > 0 && Partial.charAt(end - 1) == '\r') {
+                            Partial.setLength(end - 1);
                         }
-                        continue;
+
+                        readLine(Partial.toString());
+                        Partial.setLength(0);
+                        start = i + 1;
                     }
+                }
+                Partial.append(Chars, start, n - start);
+            }
 
-                    writeLines(MatchPattern, line);
+            return budget <= 0;
+        }
+
+        void readLine(@NonNull String line) {
+            if (PendingSpec.get() != null) {
+                applySpec(PendingSpec.getAndSet(null));
+            }
+
+            if (line.contains(BARRIER_TAG)) {
+                // Barriers of other memos are dropped as well, logs only mentioning one are kept
+                Matcher matcher = LevelPattern.matcher(line);
+                if (matcher.find() && matcher.group(2).startsWith(BARRIER_TAG + "-")) {
+                    if (matcher.group(2).equals(BarrierTag)) {
+                        passBarrier(line.substring(matcher.end()));
+                    }
+                    return;
+                }
+            }
+
+            if (SkipUntil != null && skipReplayed(line)) {
+                return;
+            }
+
+            LastLine = line;
+            captureLines(MatchPattern, line);
+        }
+
+        /**
+         * Whether the line is replayed by logcat restarted from the millisecond of a line read
+         * before, lines up to and including the latest one of the old process are written already.
+         */
+        private boolean skipReplayed(@NonNull String line) {
+            if (line.equals(SkipUntil)) {
+                SkipUntil = null;
+                return true;
+            }
+
+            int length = ACCURATETIME.length();
+            if (line.startsWith("--------- ") || (line.length() >= length
+                    && SkipUntil.length() >= length
+                    && line.substring(0, length).compareTo(SkipUntil.substring(0, length)) <= 0)) {
+                return true;
+            }
+
+            // The latest line is gone, like when level is raised, what follows is new
+            SkipUntil = null;
+            return false;
+        }
+
+        /**
+         * Drain events in buffer into files.
+         *
+         * @return true if more events arrived meanwhile
+         */
+        private boolean drainBuffer() throws IOException {
+            if (Buffer.pending()) {
+                Lines.addAndGet(Buffer.drain(ActiveChannels, Bytes));
+            }
+
+            return Buffer.pending();
+        }
+
+        /**
+         * Drain what is left and close files, waiters of barrier are released.
+         */
+        private void finish() {
+            if (Buffer != null) {
+                try {
+                    Lines.addAndGet(Buffer.drain(ActiveChannels, Bytes));
+                } catch (IOException e) {
+                    // Files are broken, give up what is left in buffer
+                }
+            }
+
+            if (JsonPart.length() > 0) {
+                writeText(MatchPattern, JsonPartLine, JsonPart.toString());
+                JsonPart.setLength(0);
+            }
+
+            releaseWriters();
+            Running = false;
+
+            synchronized (BarrierLock) {
+                BarrierLock.notifyAll();
+            }
+        }
+
+        /**
+         * Make a copy of spec for memo, names are turned into patterns.
+         */
+        private Spec memoSpecOf(@NonNull Level level, @NonNull Spec spec) {
+            Spec memo = new Spec();
+
+            memo.Level = level;
+            memo.Filters = spec.Filters;
+            memo.Trigger = spec.Trigger;
+            memo.Before = spec.Before;
+            memo.After = spec.After;
+            memo.Json = spec.Json;
+
+            if (spec.Class != null)
+                memo.Class = "\\w*" + truncateNames(spec.Class) + "\\w*";
+            else
+                memo.Class = "\\w+";
+
+            if (spec.Method != null)
+                memo.Method = "@\\w*" + truncateNames(spec.Method) + "\\w*";
+            else
+                memo.Method = "";
+
+            if (spec.Thread != null)
+                memo.Thread = ":\\w*" + truncateNames(spec.Thread) + "\\w*";
+            else
+                memo.Thread = "";
+
+            return memo;
+        }
+
+        /**
+         * Take the spec into use, files of levels newly filtered are opened.
+         */
+        private void applySpec(Spec spec) {
+            if (spec == null) {
+                return;
+            }
+
+            boolean[] filtered = new boolean[A];
+            if (spec.Filters != null) {
+                for (Level level : spec.Filters) {
+                    if (level.ordinal() < A) {
+                        filtered[level.ordinal()] = true;
+                    }
+                }
+            }
+
+            MatchPattern = buildPattern(String.valueOf(Pid), spec.Class + spec.Method + spec.Thread);
+            Filtered = filtered;
+            MemoSpec = spec;
+
+            if (Opened) {
+                // Files are created by memo on its first turn
+                createWriters();
+            }
+        }
+
+        /**
+         * Start a new logcat process from the latest line read, then stop the old one.
+         */
+        private void restartLogcat(@NonNull Level level) {
+            String line = LastLine;
+            String since = (line != null && line.length() >= ACCURATETIME.length())
+                    ? line.substring(0, ACCURATETIME.length())
+                    : new SimpleDateFormat(ACCURATETIME, Locale.CHINA)
+                            .format(System.currentTimeMillis());
+
+            String[] cli = buildCliCommand(level, Pid, since);
+            try {
+                Process old = Proc;
+                Proc = Runtime.getRuntime().exec(cli);
+                LogcatLevel = level;
+                if (old != null) {
+                    old.destroy();
                 }
             } catch (IOException e) {
-                /*
-                 * Error reading in the logcat process' output stream, this is usually caused by
-                 * process being destroyed. Here just discard the exception and close file output.
-                 * CAN'T do any log since the tree have been uprooted.
-                 */
-            } finally {
-                releaseWriters();
+                Timber.e(e, "Run cli failed: %s", Arrays.toString(cli));
             }
         }
 
+        private String[] buildCliCommand(@NonNull Level level, int pid, String since) {
+            ArrayList<String> cli = new ArrayList<>();
+
+            cli.add("logcat");
+            cli.add("--pid=" + String.valueOf(pid));
+            cli.add("-v");
+            cli.add("threadtime");
+            if (since != null) {
+                cli.add("-T");
+                cli.add(since);
+            }
+            cli.add("*:" + level.name().toUpperCase());
 
-        private String buildCliCommand(@NonNull Level level, int pid) {
-            return String.format("logcat --pid=%s -v threadtime *:%s",
-                    String.valueOf(pid), level.name().toUpperCase());
+            return cli.toArray(new String[cli.size()]);
         }
 
         private Pattern buildPattern(@NonNull String pid, @NonNull String tag) {
@@ -567,11 +1211,138 @@ public class Wood implements Tree {
                     String.format(template, pid, tag));
         }
 
+        private void passBarrier(String message) {
+            long seq;
+            try {
+                seq = Long.parseLong(message.trim());
+            } catch (NumberFormatException e) {
+                return;
+            }
+
+            for (BufferedWriter writer : Writers) {
+                if (writer != null) {
+                    try {
+                        writer.flush();
+                    } catch (IOException e) {
+                        Timber.e(e, "Fail to flush writer.");
+                    }
+                }
+            }
+
+            synchronized (BarrierLock) {
+                if (seq > BarrierPassed) {
+                    BarrierPassed = seq;
+                }
+                BarrierLock.notifyAll();
+            }
+        }
+
+        /**
+         * Hold lines below trigger level in backlog, persist them only when trigger arrives.
+         * Lines are timed by logcat, not by when memo reads them.
+         */
+        private void captureLines(Pattern pattern, String line) {
+            if (MemoSpec.Trigger == null) {
+                writeLines(pattern, line);
+                return;
+            }
+
+            long stamp = stampOf(line);
+            if (stamp < 0) {
+                stamp = CaptureStamp;
+            }
+            CaptureStamp = stamp;
+
+            if (isTrigger(line)) {
+                long since = stamp - MemoSpec.Before;
+                for (; BacklogSize > 0; BacklogSize--) {
+                    int i = (BacklogHead + MAX_BACKLOG_LINES - BacklogSize) % MAX_BACKLOG_LINES;
+                    if (BacklogTimes[i] >= since) {
+                        writeLines(pattern, Backlog[i]);
+                    }
+                    Backlog[i] = null;
+                }
+
+                writeLines(pattern, line);
+                CaptureUntil = stamp + MemoSpec.After;
+            } else if (stamp < CaptureUntil) {
+                writeLines(pattern, line);
+            } else {
+                Backlog[BacklogHead] = line;
+                BacklogTimes[BacklogHead] = stamp;
+                BacklogHead = (BacklogHead + 1) % MAX_BACKLOG_LINES;
+                if (BacklogSize < MAX_BACKLOG_LINES) {
+                    BacklogSize++;
+                }
+            }
+        }
+
+        private boolean isTrigger(String line) {
+            Matcher matcher = LevelPattern.matcher(line);
+            if (!matcher.find()) {
+                return false;
+            }
+
+            String l = matcher.group(1);
+            Level level = "F".equals(l) ? Level.A : Level.valueOf(l);
+
+            return level.Priority() >= MemoSpec.Trigger.Priority();
+        }
+
         private void writeLines(Pattern pattern, String line) {
+            if (!MemoSpec.Json) {
+                writeText(pattern, line, line);
+                return;
+            }
+
+            /*
+             * Only JSON lines are written, the logcat header is stripped off. Lines split by
+             * println are joined, lines of others are wrapped.
+             */
+            Matcher header = LevelPattern.matcher(line);
+            String tag = null;
+            String message = null;
+            if (header.find()) {
+                tag = header.group(2);
+                message = line.substring(header.end());
+            }
+
+            if (JsonPart.length() > 0) {
+                if (message != null && tag.equals(JsonPartTag)
+                        && !message.startsWith(JsonEncoder.START)) {
+                    JsonPart.append(message);
+                    if (message.length() < MAX_LOG_LENGTH) {
+                        writeText(pattern, JsonPartLine, JsonPart.toString());
+                        JsonPart.setLength(0);
+                    }
+                    return;
+                }
+
+                writeText(pattern, JsonPartLine, JsonPart.toString());
+                JsonPart.setLength(0);
+            }
+
+            if (message == null || !message.startsWith(JsonEncoder.START)) {
+                writeText(pattern, line, JsonEncoder.wrap(line));
+            } else if (message.length() == MAX_LOG_LENGTH) {
+                JsonPart.append(message);
+                JsonPartTag = tag;
+                JsonPartLine = line;
+            } else {
+                writeText(pattern, line, message);
+            }
+        }
+
+        /**
+         * Write text of a logcat line into files, the line tells which ones.
+         */
+        private void writeText(Pattern pattern, String line, String text) {
             Matcher matcher = pattern.matcher(line);
             try {
-                Writers[ALL].write(line);
+                Writers[ALL].write(text);
                 Writers[ALL].write('\n');
+                Bytes.addAndGet(ALL, text.length() + 1);
+                Lines.incrementAndGet();
 
                 if (!matcher.find()) {
                     return;
@@ -579,9 +1350,10 @@ public class Wood implements Tree {
 
                 try {
                     int i = Level.valueOf(matcher.group(1)).ordinal();
-                    if(Writers[i] != null) {
-                        Writers[i].write(line);
+                    if(Writers[i] != null && Filtered[i]) {
+                        Writers[i].write(text);
                         Writers[i].write('\n');
+                        Bytes.addAndGet(i, text.length() + 1);
                     }
                 } catch (IllegalArgumentException e) {
                     Timber.e(e, "Level parsing error: <%s>", line);
@@ -591,12 +1363,15 @@ public class Wood implements Tree {
             }
         }
 
+        /**
+         * Open files for levels filtered, files already open are kept.
+         */
         private void createWriters() {
             String paper = "";
 
             ArrayList<Level> filters = new ArrayList<>();
-            if (Wood.this.MemoSpec != null && Wood.this.MemoSpec.Filters != null) {
-                filters.addAll(Arrays.asList(Wood.this.MemoSpec.Filters));
+            if (MemoSpec.Filters != null) {
+                filters.addAll(Arrays.asList(MemoSpec.Filters));
             }
 
             filters.add(Level.ALL);
@@ -609,22 +1384,43 @@ public class Wood implements Tree {
                     continue;
                 }
 
+                int i = level.ordinal();
+                if (Writers[i] != null || Channels[i] != null) {
+                    continue;
+                }
+
                 try {
                     paper = generatePaperName(Store, level.name());
                     File file = new File(paper);
-                    FileOutputStream fos = new FileOutputStream(file);
-                    BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(fos));
-                    Writers[level.ordinal()] = writer;
+                    FileOutputStream fos = new FileOutputStream(file, true);
+                    if (Buffer != null) {
+                        Channels[i] = fos.getChannel();
+                    } else {
+                        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(fos));
+                        Writers[i] = writer;
+                    }
                 } catch (FileNotFoundException e) {
                     Timber.e(e, "Fail opening file: %s", paper);
                 }
             }
+
+            FileChannel[] active = new FileChannel[A];
+            active[ALL] = Channels[ALL];
+            for (int i = 0; i < A; i++) {
+                if (Filtered[i]) {
+                    active[i] = Channels[i];
+                }
+            }
+            ActiveChannels = active;
         }
 
         private void releaseWriters() {
+            String table = Fingerprints.table(MemoSpec != null && MemoSpec.Json);
+
             for (BufferedWriter writer : Writers) {
                 if (writer != null) {
                     try {
+                        writer.write(table);
                         writer.flush();
                         writer.close();
                     } catch (IOException e) {
@@ -632,6 +1428,22 @@ public class Wood implements Tree {
                     }
                 }
             }
+
+            ByteBuffer bytes = ByteBuffer.wrap(table.getBytes(Charset.forName("UTF-8")));
+
+            for (FileChannel channel : Channels) {
+                if (channel != null) {
+                    try {
+                        bytes.rewind();
+                        while (bytes.hasRemaining()) {
+                            channel.write(bytes);
+                        }
+                        channel.close();
+                    } catch (IOException e) {
+                        Timber.e(e, "Fail to close channel.");
+                    }
+                }
+            }
         }
     }
 }
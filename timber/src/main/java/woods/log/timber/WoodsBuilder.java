@@ -7,6 +7,9 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
 
 import io.reactivex.Observable;
 import io.reactivex.ObservableSource;
@@ -23,9 +26,31 @@ import io.reactivex.observables.ConnectableObservable;
 
 public class WoodsBuilder {
 
+    private static final int DEFAULT_BACKLOG = 256;
+
     private ArrayList<Class<?>> Seeds = new ArrayList<Class<?>>();
     private ArrayList<Tree> Trees = new ArrayList<Tree>();
 
+    /**
+     * Queue settings of trees to be isolated, null key for all trees
+     */
+    private Map<Tree, Isolation> Isolations = new HashMap<Tree, Isolation>();
+
+    /**
+     * Milliseconds a tree may take for a batch of logs before bypassed
+     */
+    private long Budget = 0;
+
+    /**
+     * Events held until trees are planted on sawmill, 0 to plant on the calling thread
+     */
+    private int Backlog = 0;
+
+    /**
+     * Priority of threads trees work on in background, null to leave as is
+     */
+    private Integer Priority = null;
+
 
     public WoodsBuilder() {
     }
@@ -40,11 +65,104 @@ public class WoodsBuilder {
         return this;
     }
 
+    /**
+     * Give every tree which is a {@link Sink} its own queue and worker.
+     */
+    public WoodsBuilder isolate(int capacity, @NonNull Overflow overflow) {
+        Isolations.put(null, new Isolation(capacity, overflow));
+        return this;
+    }
+
+    /**
+     * Give the tree its own queue and worker, overriding settings for all trees.
+     */
+    public WoodsBuilder isolate(@NonNull Sink tree, int capacity, @NonNull Overflow overflow) {
+        Isolations.put(tree, new Isolation(capacity, overflow));
+        return this;
+    }
+
+    /**
+     * Bypass an isolated tree for a while if it takes longer than budget for a batch of logs.
+     */
+    public WoodsBuilder budget(long millis) {
+        Budget = millis;
+        return this;
+    }
+
+    /**
+     * Grow and plant trees on a background thread, build returns at once.
+     * Events logged until trees are planted are held and replayed, at most backlog of them.
+     */
+    public WoodsBuilder lazy(int backlog) {
+        if (backlog <= 0) {
+            throw new AssertionError("Backlog should be positive: " + backlog);
+        }
+
+        Backlog = backlog;
+        return this;
+    }
+
+    /**
+     * Grow and plant trees on a background thread, with default backlog.
+     */
+    public WoodsBuilder lazy() {
+        return lazy(DEFAULT_BACKLOG);
+    }
+
+    /**
+     * Set priority of threads all trees share for background work, reading and writing logs.
+     *
+     * @param priority a thread priority of {@link android.os.Process}, e.g.
+     *                 {@link android.os.Process#THREAD_PRIORITY_BACKGROUND} by default
+     */
+    public WoodsBuilder priority(int priority) {
+        Priority = priority;
+        return this;
+    }
+
+    /**
+     * Plant trees grown from seeds, then trees added.
+     * Trees from generated forests are added as trees, no reflection is taken for them.
+     */
     public void build() {
-        if (Seeds.isEmpty()) {
+        if (Priority != null) {
+            Sawmill.priority(Priority);
+        }
+
+        if (Backlog > 0) {
+            Timber.plant(new Nursery(Backlog, new Callable<Tree[]>() {
+                @Override
+                public Tree[] call() throws Exception {
+                    return grow();
+                }
+            }));
             return;
         }
 
+        for (Tree tree : grow()) {
+            Timber.plant(tree);
+        }
+        Timber.i("Timber build complete.");
+    }
+
+    /**
+     * Create trees to be planted, in order of seeds and then trees added.
+     */
+    private Tree[] grow() {
+        final ArrayList<Tree> trees = new ArrayList<Tree>();
+
+        if (!Seeds.isEmpty()) {
+            growSeeds(trees);
+        }
+
+        for (Tree tree : Trees) {
+            trees.add(isolated(tree));
+        }
+
+        return trees.toArray(new Tree[trees.size()]);
+    }
+
+    private void growSeeds(final ArrayList<Tree> trees) {
         ConnectableObservable<Method> methodObservable =
                 Observable.fromArray(Seeds.toArray(new Class<?>[Seeds.size()]))
                 .flatMap(new Function<Class<?>, ObservableSource<Method>>() {
@@ -86,7 +204,7 @@ public class WoodsBuilder {
 
                     @Override
                     public void onNext(Tree tree) {
-                        Timber.plant(tree);
+                        trees.add(isolated(tree));
                     }
 
                     @Override
@@ -96,16 +214,29 @@ public class WoodsBuilder {
 
                     @Override
                     public void onComplete() {
-                        for (Tree tree : Trees) {
-                            Timber.plant(tree);
-                        }
-                        Timber.i("Timber build complete.");
                     }
                 });
 
         methodObservable.connect();
     }
 
+    private Tree isolated(@NonNull Tree tree) {
+        if (!(tree instanceof Sink)) {
+            return tree;
+        }
+
+        Isolation isolation = Isolations.get(tree);
+        if (isolation == null) {
+            isolation = Isolations.get(null);
+        }
+
+        if (isolation == null) {
+            return tree;
+        }
+
+        return new Bulkhead((Sink) tree, isolation.Capacity, isolation.Overflow, Budget);
+    }
+
     private Tree treeFromMethod(@NonNull Method method) {
         Class<?> treeClass = method.getReturnType();
 
@@ -135,4 +266,16 @@ public class WoodsBuilder {
 
         return Tools.parseTipString(pin.value());
     }
+
+    private static final class Isolation {
+
+        final int Capacity;
+
+        final Overflow Overflow;
+
+        Isolation(int capacity, @NonNull Overflow overflow) {
+            Capacity = capacity;
+            Overflow = overflow;
+        }
+    }
 }
@@ -0,0 +1,153 @@
+package woods.log.timber;
+
+import android.support.annotation.NonNull;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+
+public class BulkheadTest {
+
+    private final Catcher Sink = new Catcher();
+
+    @Test
+    public void dropNewestKeepsEventsQueued() {
+        // Not planted yet, nothing takes events out of queue
+        Bulkhead bulkhead = new Bulkhead(Sink, 2, Overflow.DROP_NEWEST, 0);
+        bulkhead.log(event("1"));
+        bulkhead.log(event("2"));
+        bulkhead.log(event("3"));
+        assertEquals(2, bulkhead.depth());
+        assertEquals(1, bulkhead.dropped());
+
+        bulkhead.plant();
+        assertTrue(bulkhead.flush(1000));
+        bulkhead.uproot();
+
+        assertMessages("1", "2");
+    }
+
+    @Test
+    public void dropOldestMakesRoomForNewest() {
+        Bulkhead bulkhead = new Bulkhead(Sink, 2, Overflow.DROP_OLDEST, 0);
+        bulkhead.log(event("1"));
+        bulkhead.log(event("2"));
+        bulkhead.log(event("3"));
+        assertEquals(2, bulkhead.depth());
+        assertEquals(1, bulkhead.dropped());
+
+        bulkhead.plant();
+        assertTrue(bulkhead.flush(1000));
+        bulkhead.uproot();
+
+        assertMessages("2", "3");
+    }
+
+    @Test
+    public void blockWaitsForRoom() throws Exception {
+        final Bulkhead bulkhead = new Bulkhead(Sink, 2, Overflow.BLOCK, 0);
+        bulkhead.log(event("1"));
+        bulkhead.log(event("2"));
+
+        Thread caller = log(bulkhead, "3");
+        caller.join(100);
+        assertTrue(caller.isAlive());
+
+        bulkhead.plant();
+        caller.join(1000);
+        assertFalse(caller.isAlive());
+
+        assertTrue(bulkhead.flush(1000));
+        bulkhead.uproot();
+
+        assertMessages("1", "2", "3");
+        assertEquals(0, bulkhead.dropped());
+    }
+
+    @Test
+    public void blockGivesUpOnUproot() throws Exception {
+        final Bulkhead bulkhead = new Bulkhead(Sink, 1, Overflow.BLOCK, 0);
+        bulkhead.log(event("1"));
+
+        Thread caller = log(bulkhead, "2");
+        caller.join(100);
+        assertTrue(caller.isAlive());
+
+        bulkhead.uproot();
+        caller.join(1000);
+        assertFalse(caller.isAlive());
+
+        // Never planted, the event queued is dropped along with the one waiting
+        assertMessages();
+        assertEquals(2, bulkhead.dropped());
+    }
+
+    @Test
+    public void uprootHandsOverEventsQueued() {
+        Bulkhead bulkhead = new Bulkhead(Sink, 16, Overflow.BLOCK, 0);
+        bulkhead.plant();
+        for (int i = 0; i < 10; i++) {
+            bulkhead.log(event(String.valueOf(i)));
+        }
+        bulkhead.uproot();
+
+        assertMessages("0", "1", "2", "3", "4", "5", "6", "7", "8", "9");
+        assertEquals(0, bulkhead.depth());
+    }
+
+    @Test
+    public void crashHandsOverEventsQueued() {
+        Bulkhead bulkhead = new Bulkhead(Sink, 16, Overflow.BLOCK, 0);
+        bulkhead.plant();
+        bulkhead.log(event("before crash"));
+        bulkhead.crash();
+
+        assertMessages("before crash");
+        bulkhead.uproot();
+    }
+
+    @Test
+    public void assertionIsHandedOverOnCallingThread() {
+        Bulkhead bulkhead = new Bulkhead(Sink, 1, Overflow.DROP_NEWEST, 0);
+        bulkhead.log(event("queued"));
+
+        Event assertion = event("assert");
+        assertion.bind(Level.A, null);
+        bulkhead.log(assertion);
+
+        assertMessages("assert");
+        assertEquals(0, bulkhead.dropped());
+    }
+
+    private static Thread log(@NonNull final Bulkhead bulkhead, @NonNull final String message) {
+        Thread caller = new Thread() {
+            @Override
+            public void run() {
+                bulkhead.log(event(message));
+            }
+        };
+        caller.start();
+
+        return caller;
+    }
+
+    private void assertMessages(String... messages) {
+        synchronized (Sink) {
+            assertEquals(messages.length, Sink.Events.size());
+            for (int i = 0; i < messages.length; i++) {
+                assertEquals(messages[i], Sink.Events.get(i).message());
+            }
+        }
+    }
+
+    private static Event event(@NonNull String message) {
+        Event event = new Event();
+        event.who = "Api";
+        event.bind(Level.I, null);
+        event.bind(message, null);
+        return event;
+    }
+}
@@ -0,0 +1,44 @@
+package woods.log.timber;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Sink keeping copies of events logged to it, for tests.
+ */
+class Catcher extends Sink {
+
+    final List<Event> Events = new ArrayList<>();
+
+    @Override
+    public void plant() {
+    }
+
+    @Override
+    public void uproot() {
+    }
+
+    @Override
+    public void pin(@NonNull Spec spec) {
+    }
+
+    @Override
+    public boolean flush(long timeout) {
+        return true;
+    }
+
+    @Override
+    public boolean isLoggable(@NonNull Level level, String tag) {
+        return true;
+    }
+
+    @Override
+    public synchronized void log(@NonNull Event event) {
+        Event copy = new Event();
+        copy.set(event);
+        Events.add(copy);
+    }
+}
@@ -0,0 +1,163 @@
+package woods.log.timber;
+
+import android.support.annotation.NonNull;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+
+public class CoalescerTest {
+
+    private static final long NOW = 1508400000000L;
+
+    private static final Milieu.CallSite API =
+            new Milieu.CallSite(new StackTraceElement("com.app.Api", "call", "Api.java", 10));
+
+    private static final Milieu.CallSite DB =
+            new Milieu.CallSite(new StackTraceElement("com.app.Db", "query", "Db.java", 20));
+
+    @Test
+    public void noWindowNoCoalescer() {
+        assertNull(Coalescer.of(null, new Catcher()));
+        assertNull(Coalescer.of(new SpecBuilder().level(Level.D).build(), new Catcher()));
+    }
+
+    @Test
+    public void repeatsAreToldWhenRunEnds() {
+        Catcher sink = new Catcher();
+        Coalescer coalescer = coalescer(sink);
+
+        assertTrue(coalescer.admit(event(API, "Timeout", NOW)));
+        assertFalse(coalescer.admit(event(API, "Timeout", NOW + 1)));
+        assertFalse(coalescer.admit(event(API, "Timeout", NOW + 2)));
+        assertEquals(0, sink.Events.size());
+
+        assertTrue(coalescer.admit(event(API, "Done", NOW + 3)));
+        assertEquals(1, sink.Events.size());
+
+        Event ended = sink.Events.get(0);
+        assertEquals(Coalescer.REPEATED, ended.format);
+        assertEquals(2L, ended.args[0]);
+        assertEquals("Api", ended.what);
+        assertEquals(Level.I, ended.how);
+    }
+
+    @Test
+    public void messageNotRepeatedTellsNothing() {
+        Catcher sink = new Catcher();
+        Coalescer coalescer = coalescer(sink);
+
+        assertTrue(coalescer.admit(event(API, "Timeout", NOW)));
+        assertTrue(coalescer.admit(event(API, "Done", NOW + 1)));
+        assertTrue(coalescer.admit(event(API, "Timeout", NOW + 2)));
+
+        assertEquals(0, sink.Events.size());
+    }
+
+    @Test
+    public void runsAreKeptForEachCallSite() {
+        Catcher sink = new Catcher();
+        Coalescer coalescer = coalescer(sink);
+
+        assertTrue(coalescer.admit(event(API, "Timeout", NOW)));
+        assertTrue(coalescer.admit(event(DB, "Timeout", NOW + 1)));
+        assertFalse(coalescer.admit(event(API, "Timeout", NOW + 2)));
+        assertFalse(coalescer.admit(event(DB, "Timeout", NOW + 3)));
+
+        assertEquals(0, sink.Events.size());
+    }
+
+    @Test
+    public void repeatOutOfWindowStartsNewRun() {
+        Catcher sink = new Catcher();
+        Coalescer coalescer = coalescer(sink);
+
+        assertTrue(coalescer.admit(event(API, "Timeout", NOW)));
+        assertFalse(coalescer.admit(event(API, "Timeout", NOW + 999)));
+        assertTrue(coalescer.admit(event(API, "Timeout", NOW + 1000)));
+
+        assertEquals(1, sink.Events.size());
+        assertEquals(1L, sink.Events.get(0).args[0]);
+    }
+
+    @Test
+    public void messagesOfSameHashAreNoRepeats() {
+        Catcher sink = new Catcher();
+        Coalescer coalescer = coalescer(sink);
+
+        assertEquals("user Aa".hashCode(), "user BB".hashCode());
+        assertTrue(coalescer.admit(event(API, "user Aa", NOW)));
+        assertTrue(coalescer.admit(event(API, "user BB", NOW + 1)));
+        assertFalse(coalescer.admit(event(API, "user BB", NOW + 2)));
+        assertTrue(coalescer.admit(event(API, "user Aa", NOW + 3)));
+
+        assertEquals(1, sink.Events.size());
+        assertEquals(1L, sink.Events.get(0).args[0]);
+    }
+
+    @Test
+    public void exceptionsOfOtherTypesAreNoRepeats() {
+        Coalescer coalescer = coalescer(new Catcher());
+
+        Event first = event(API, "Fail", NOW);
+        first.why = new IllegalStateException();
+        assertTrue(coalescer.admit(first));
+
+        Event second = event(API, "Fail", NOW + 1);
+        second.why = new IllegalArgumentException();
+        assertTrue(coalescer.admit(second));
+
+        Event third = event(API, "Fail", NOW + 2);
+        third.why = new IllegalArgumentException();
+        assertFalse(coalescer.admit(third));
+    }
+
+    @Test
+    public void assertionsAndEventsWithoutSiteAreLetGo() {
+        Coalescer coalescer = coalescer(new Catcher());
+
+        for (int i = 0; i < 3; i++) {
+            Event event = event(API, "Fatal", NOW);
+            event.how = Level.A;
+            assertTrue(coalescer.admit(event));
+
+            assertTrue(coalescer.admit(event(null, "Nowhere", NOW)));
+        }
+    }
+
+    @Test
+    public void retireTellsRunGoingOn() throws Exception {
+        Catcher sink = new Catcher();
+        Coalescer coalescer = coalescer(sink);
+
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 4; i++) {
+            coalescer.admit(event(API, "Timeout", now));
+        }
+
+        coalescer.retire();
+        Thread.sleep(200);
+
+        assertEquals(1, sink.Events.size());
+        assertEquals(3L, sink.Events.get(0).args[0]);
+    }
+
+    private static Coalescer coalescer(@NonNull Catcher sink) {
+        return Coalescer.of(new SpecBuilder().coalesce(1000).build(), sink);
+    }
+
+    private static Event event(Milieu.CallSite site, @NonNull String message, long when) {
+        Event event = new Event();
+        event.site = site;
+        event.what = site != null ? site.Class : null;
+        event.who = event.what;
+        event.when = when;
+        event.bind(Level.I, null);
+        event.bind(message, null);
+        return event;
+    }
+}
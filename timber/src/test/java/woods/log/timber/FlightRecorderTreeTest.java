@@ -0,0 +1,69 @@
+package woods.log.timber;
+
+import android.support.annotation.NonNull;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+
+public class FlightRecorderTreeTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void argsAreToldAsTheyWereLogged() throws Exception {
+        FlightRecorderTree recorder = new FlightRecorderTree(folder.getRoot().getPath(), 4);
+
+        StringBuilder state = new StringBuilder("logged");
+        recorder.log(event("state %s", state, null));
+        state.setLength(0);
+        state.append("crashed");
+
+        String dump = dump(recorder);
+        assertTrue(dump, dump.contains("I Api: state logged <Api.java:10>\n"));
+        assertFalse(dump, dump.contains("crashed"));
+    }
+
+    @Test
+    public void ringKeepsLatestEventsOldestFirst() throws Exception {
+        FlightRecorderTree recorder = new FlightRecorderTree(folder.getRoot().getPath(), 2);
+
+        recorder.log(event("first", null, null));
+        recorder.log(event("second", null, null));
+        recorder.log(event("third", null, new IllegalStateException("broken")));
+
+        String dump = dump(recorder);
+        assertFalse(dump, dump.contains("first"));
+        assertTrue(dump, dump.indexOf("second") < dump.indexOf("third"));
+        assertTrue(dump, dump.contains("java.lang.IllegalStateException: broken"));
+    }
+
+    private static String dump(@NonNull FlightRecorderTree recorder) throws Exception {
+        File paper = recorder.dump();
+        assertNotNull(paper);
+
+        return new String(Files.readAllBytes(paper.toPath()), Charset.forName("UTF-8"));
+    }
+
+    private static Event event(@NonNull String format, Object arg, Throwable why) {
+        Event event = new Event();
+        event.who = "Api";
+        event.where = "call";
+        event.thread = "main";
+        event.source = "<Api.java:10>";
+        event.when = System.currentTimeMillis();
+        event.bind(Level.I, why);
+        event.bind(format, arg != null ? new Object[]{arg} : null);
+        return event;
+    }
+}
@@ -0,0 +1,96 @@
+package woods.log.timber;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+
+public class GovernorTest {
+
+    private final Governor Governor = new Governor(1000, 80);
+
+    @After
+    public void tearDown() {
+        Timber.Floor = 0;
+    }
+
+    @Test
+    public void floorIsRaisedALevelASampleUpToWarn() {
+        Governor.adjust(5000, 0);
+        assertEquals(Level.D.ordinal(), Timber.Floor);
+
+        Governor.adjust(5000, 0);
+        assertEquals(Level.I.ordinal(), Timber.Floor);
+
+        Governor.adjust(0, 90);
+        assertEquals(Level.W.ordinal(), Timber.Floor);
+
+        Governor.adjust(5000, 90);
+        assertEquals(Level.W.ordinal(), Timber.Floor);
+    }
+
+    @Test
+    public void floorIsLoweredAfterCalmSamples() {
+        Governor.adjust(5000, 0);
+        Governor.adjust(5000, 0);
+
+        for (int i = 0; i < 3; i++) {
+            Governor.adjust(100, 0);
+            assertEquals(Level.I.ordinal(), Timber.Floor);
+        }
+
+        Governor.adjust(100, 0);
+        assertEquals(Level.D.ordinal(), Timber.Floor);
+
+        for (int i = 0; i < 4; i++) {
+            Governor.adjust(100, 0);
+        }
+        assertEquals(0, Timber.Floor);
+    }
+
+    @Test
+    public void loadBetweenThresholdsHoldsFloor() {
+        Governor.adjust(5000, 0);
+
+        // Under the threshold but over half of it, calm samples start over
+        for (int i = 0; i < 3; i++) {
+            Governor.adjust(100, 0);
+        }
+        Governor.adjust(700, 0);
+        for (int i = 0; i < 3; i++) {
+            Governor.adjust(100, 0);
+        }
+        assertEquals(Level.D.ordinal(), Timber.Floor);
+
+        Governor.adjust(100, 50);
+        for (int i = 0; i < 3; i++) {
+            Governor.adjust(100, 0);
+        }
+        assertEquals(Level.D.ordinal(), Timber.Floor);
+
+        Governor.adjust(100, 0);
+        assertEquals(0, Timber.Floor);
+    }
+
+    @Test
+    public void calmWithoutFloorDoesNothing() {
+        for (int i = 0; i < 10; i++) {
+            Governor.adjust(0, 0);
+        }
+
+        assertEquals(0, Timber.Floor);
+    }
+
+    @Test
+    public void retireLetsAllLevelsGo() {
+        Governor.adjust(5000, 0);
+        Governor.adjust(5000, 0);
+
+        Governor.retire();
+        assertEquals(0, Timber.Floor);
+
+        Governor.adjust(5000, 0);
+        assertEquals(Level.D.ordinal(), Timber.Floor);
+    }
+}
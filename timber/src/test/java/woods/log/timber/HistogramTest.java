@@ -0,0 +1,111 @@
+package woods.log.timber;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+
+public class HistogramTest {
+
+    @Test
+    public void smallValuesHaveBucketsOfTheirOwn() {
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i, Histogram.bucketOf(i));
+            assertEquals(i, Histogram.upperOf(i));
+        }
+    }
+
+    @Test
+    public void valueFallsInItsBucket() {
+        Random random = new Random(7);
+        for (int i = 0; i < 100000; i++) {
+            long value = (random.nextLong() >>> 1) >>> random.nextInt(63);
+            int bucket = Histogram.bucketOf(value);
+
+            assertTrue(value + " over bucket " + bucket, value <= Histogram.upperOf(bucket));
+            if (bucket > 0) {
+                assertTrue(value + " under bucket " + bucket,
+                        value > Histogram.upperOf(bucket - 1));
+            }
+        }
+    }
+
+    @Test
+    public void bucketIsWithinQuarterOfValue() {
+        for (long value = 4; value > 0 && value < Long.MAX_VALUE / 2; value = value * 3 + 1) {
+            long upper = Histogram.upperOf(Histogram.bucketOf(value));
+            assertTrue(value + " told as " + upper, upper - value <= value / 4);
+        }
+    }
+
+    @Test
+    public void edgesOfRange() {
+        assertEquals(Long.MAX_VALUE, Histogram.upperOf(Histogram.bucketOf(Long.MAX_VALUE)));
+        assertTrue(Histogram.bucketOf(Long.MAX_VALUE) < (64 - 2 + 1) * 4);
+        assertEquals(4, Histogram.bucketOf(4));
+        assertEquals(4, Histogram.upperOf(4));
+        assertEquals(7, Histogram.upperOf(Histogram.bucketOf(7)));
+        assertEquals(8, Histogram.bucketOf(8));
+    }
+
+    @Test
+    public void percentileIsUpperOfItsBucket() {
+        Histogram histogram = new Histogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+
+        assertEquals(100, histogram.count());
+        assertEquals(5050, histogram.sum());
+        assertEquals(50.5, histogram.mean(), 1e-9);
+        assertEquals(1, histogram.percentile(0));
+        assertEquals(55, histogram.percentile(0.5));
+        assertEquals(95, histogram.percentile(0.9));
+        assertEquals(100, histogram.percentile(0.99));
+        assertEquals(100, histogram.percentile(1));
+    }
+
+    @Test
+    public void percentileIsNeverOverMax() {
+        Histogram histogram = new Histogram();
+        histogram.record(1000);
+
+        assertEquals(1000, histogram.percentile(0.5));
+        assertEquals(1000, histogram.max());
+    }
+
+    @Test
+    public void emptyAndNegative() {
+        Histogram histogram = new Histogram();
+        assertEquals(0, histogram.percentile(0.99));
+        assertEquals(0, histogram.mean(), 0);
+
+        histogram.record(-5);
+        assertEquals(1, histogram.count());
+        assertEquals(0, histogram.max());
+        assertEquals(0, histogram.percentile(0.5));
+    }
+
+    @Test
+    public void addAndReset() {
+        Histogram a = new Histogram();
+        Histogram b = new Histogram();
+        a.record(10);
+        b.record(20);
+        b.record(3000);
+
+        a.add(b);
+        assertEquals(3, a.count());
+        assertEquals(3030, a.sum());
+        assertEquals(3000, a.max());
+        assertEquals(23, a.percentile(0.5));
+
+        a.reset();
+        assertEquals(0, a.count());
+        assertEquals(0, a.max());
+        assertEquals(0, a.percentile(0.5));
+    }
+}
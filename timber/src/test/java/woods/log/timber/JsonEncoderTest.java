@@ -0,0 +1,120 @@
+package woods.log.timber;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+
+public class JsonEncoderTest {
+
+    @Test
+    public void eventIsOneLine() {
+        Event event = event("request done");
+
+        assertEquals("{\"ts\":1508400000000,\"level\":\"I\",\"tag\":\"Api\",\"thread\":\"main\","
+                + "\"tid\":1,\"class\":\"Api\",\"method\":\"fetch\",\"source\":\"<Api.java:42>\","
+                + "\"msg\":\"request done\"}", JsonEncoder.encode(event, "Api", null));
+    }
+
+    @Test
+    public void stringsAreEscaped() {
+        String line = JsonEncoder.encode(event("say \"hi\"\\\n\r\t\u0001\u2028"), "Api", null);
+
+        assertTrue(line, line.contains(
+                "\"msg\":\"say \\\"hi\\\"\\\\\\n\\r\\t\\u0001\\u2028\""));
+        assertEquals(-1, line.indexOf('\n'));
+    }
+
+    @Test
+    public void primitivesAreWrittenAsTheyAre() {
+        Event event = event("done");
+        event.fields = new Fields();
+        event.fields.put("user", 42L);
+        event.fields.put("ratio", 0.5);
+        event.fields.put("ok", true);
+        event.fields.put("path", "/a b");
+        event.fields.put("none", (Object) null);
+        event.fields.put("boxed", (Object) 7);
+
+        String line = JsonEncoder.encode(event, "Api", null);
+
+        assertTrue(line, line.endsWith(",\"kv\":{\"user\":42,\"ratio\":0.5,\"ok\":true,"
+                + "\"path\":\"/a b\",\"none\":null,\"boxed\":7}}"));
+    }
+
+    @Test
+    public void notNumbersAreStrings() {
+        Event event = event("done");
+        event.fields = new Fields();
+        event.fields.put("nan", Double.NaN);
+        event.fields.put("inf", Double.NEGATIVE_INFINITY);
+        event.fields.put("boxed", (Object) Float.POSITIVE_INFINITY);
+
+        String line = JsonEncoder.encode(event, "Api", null);
+
+        assertTrue(line, line.endsWith(
+                ",\"kv\":{\"nan\":\"NaN\",\"inf\":\"-Infinity\",\"boxed\":\"Infinity\"}}"));
+    }
+
+    @Test
+    public void scopeAndExceptionAreWritten() {
+        Event event = event("fail");
+        event.scope = Scope.EMPTY.with("request", "7f3a");
+
+        String line = JsonEncoder.encode(event, "Api", "#1 IllegalStateException");
+
+        assertTrue(line, line.endsWith(
+                ",\"exception\":\"#1 IllegalStateException\",\"ctx\":{\"request\":\"7f3a\"}}"));
+    }
+
+    @Test
+    public void tableAndForeignLinesAreRecords() {
+        assertEquals("{\"exception\":1,\"seen\":3,\"trace\":\"a\\n\\tat b\"}",
+                JsonEncoder.exception(1, 3, "a\n\tat b"));
+        assertEquals("{\"logcat\":\"10-19 10:00:00.001 I Tag: \\\"x\\\"\"}",
+                JsonEncoder.wrap("10-19 10:00:00.001 I Tag: \"x\""));
+    }
+
+    @Test
+    public void fieldsAsTextAreQuotedWhenNeeded() {
+        Fields fields = new Fields();
+        fields.put("user", 42L);
+        fields.put("path", "/a b");
+        fields.put("empty", "");
+        fields.put("quote", "say \"hi\"");
+
+        assertEquals(" user=42 path=\"/a b\" empty=\"\" quote=\"say \\\"hi\\\"\"",
+                fields.appendTo(new StringBuilder()).toString());
+    }
+
+    @Test
+    public void fieldsGrowAndCopy() {
+        Fields fields = new Fields();
+        for (int i = 0; i < 20; i++) {
+            fields.put("k" + i, (long) i);
+        }
+        fields.put("d", 1.5);
+
+        Fields copy = new Fields();
+        copy.copy(fields);
+
+        assertEquals(21, copy.size());
+        assertEquals(19L, copy.longValue(19));
+        assertEquals(1.5, copy.doubleValue(20), 0);
+        assertEquals(1L, copy.longValue(20));
+    }
+
+    private static Event event(String message) {
+        Event event = new Event();
+        event.when = 1508400000000L;
+        event.thread = "main";
+        event.tid = 1;
+        event.who = "Api";
+        event.where = "fetch";
+        event.source = "<Api.java:42>";
+        event.bind(Level.I, null);
+        event.bind(message, null);
+        return event;
+    }
+}
@@ -0,0 +1,172 @@
+package woods.log.timber;
+
+import android.support.annotation.NonNull;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+
+public class LimiterTest {
+
+    private static final long NOW = 1508400000000L;
+
+    @Test
+    public void noRuleNoLimiter() {
+        assertNull(Limiter.of(null, new Catcher()));
+        assertNull(Limiter.of(new SpecBuilder().level(Level.D).build(), new Catcher()));
+    }
+
+    @Test
+    public void bucketLetsBurstThenOneATokenGo() {
+        Limiter limiter = limiter(new SpecBuilder().rate(2).burst(3));
+
+        assertTrue(limiter.allow(event("Api", NOW)));
+        assertTrue(limiter.allow(event("Api", NOW)));
+        assertTrue(limiter.allow(event("Api", NOW)));
+        assertFalse(limiter.allow(event("Api", NOW)));
+
+        // A token every 500 ms
+        assertFalse(limiter.allow(event("Api", NOW + 250)));
+        assertTrue(limiter.allow(event("Api", NOW + 500)));
+        assertFalse(limiter.allow(event("Api", NOW + 500)));
+    }
+
+    @Test
+    public void bucketIsKeptForEachKey() {
+        Limiter limiter = limiter(new SpecBuilder().rate(1).burst(1));
+
+        assertTrue(limiter.allow(event("Api", NOW)));
+        assertFalse(limiter.allow(event("Api", NOW)));
+        assertTrue(limiter.allow(event("Db", NOW)));
+    }
+
+    @Test
+    public void firstOfEachInterval() {
+        Limiter limiter = limiter(new SpecBuilder().first(2).interval(1000));
+
+        assertTrue(limiter.allow(event("Api", NOW)));
+        assertTrue(limiter.allow(event("Api", NOW + 10)));
+        assertFalse(limiter.allow(event("Api", NOW + 20)));
+        assertFalse(limiter.allow(event("Api", NOW + 999)));
+
+        assertTrue(limiter.allow(event("Api", NOW + 1000)));
+        assertTrue(limiter.allow(event("Api", NOW + 1001)));
+        assertFalse(limiter.allow(event("Api", NOW + 1002)));
+    }
+
+    @Test
+    public void sampleOneInN() {
+        Limiter limiter = limiter(new SpecBuilder().sample(4));
+
+        int passed = 0;
+        for (int i = 0; i < 40; i++) {
+            if (limiter.allow(event("Api", NOW + i))) {
+                passed++;
+            }
+        }
+
+        assertEquals(10, passed);
+    }
+
+    @Test
+    public void sampleCountsOnlyLogsOtherRulesLetGo() {
+        Limiter limiter = limiter(new SpecBuilder().sample(2).first(1).interval(1000));
+
+        // The one sampled in is taken by first of the interval, the next one is sampled in
+        assertTrue(limiter.allow(event("Api", NOW)));
+        assertFalse(limiter.allow(event("Api", NOW + 1)));
+        assertFalse(limiter.allow(event("Api", NOW + 2)));
+
+        assertTrue(limiter.allow(event("Api", NOW + 1000)));
+    }
+
+    @Test
+    public void assertionsAreNeverSuppressed() {
+        Limiter limiter = limiter(new SpecBuilder().rate(1).burst(1));
+
+        for (int i = 0; i < 10; i++) {
+            Event event = event("Api", NOW);
+            event.how = Level.A;
+            assertTrue(limiter.allow(event));
+        }
+    }
+
+    @Test
+    public void idleKeysAreEvicted() throws Exception {
+        Limiter limiter = limiter(new SpecBuilder().first(1).interval(50));
+
+        for (int i = 0; i < 1024; i++) {
+            limiter.allow(event("Tag" + i, NOW));
+        }
+
+        // Too many keys, a new one is let go
+        assertTrue(limiter.allow(event("Late", NOW)));
+        assertTrue(limiter.allow(event("Late", NOW)));
+
+        Thread.sleep(500);
+
+        assertTrue(limiter.allow(event("Later", NOW)));
+        assertFalse(limiter.allow(event("Later", NOW)));
+
+        limiter.retire();
+    }
+
+    @Test
+    public void sweepStartsAgainForKeyAddedAfterAllEvicted() throws Exception {
+        Catcher sink = new Catcher();
+        Limiter limiter = Limiter.of(new SpecBuilder().first(1).interval(50).perTag(true)
+                .build(), sink);
+
+        assertTrue(limiter.allow(event("Api", System.currentTimeMillis())));
+
+        // Evicted once idle, sweeping stops
+        Thread.sleep(300);
+
+        long now = System.currentTimeMillis();
+        assertTrue(limiter.allow(event("Db", now)));
+        assertFalse(limiter.allow(event("Db", now)));
+
+        Thread.sleep(300);
+
+        assertEquals(1, sink.Events.size());
+        assertEquals("Db", sink.Events.get(0).what);
+
+        limiter.retire();
+    }
+
+    @Test
+    public void summaryTellsLogsSuppressed() throws Exception {
+        Catcher sink = new Catcher();
+        Limiter limiter = Limiter.of(new SpecBuilder().first(1).interval(60000).perTag(true)
+                .build(), sink);
+
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 5; i++) {
+            limiter.allow(event("Api", now));
+        }
+
+        limiter.retire();
+        Thread.sleep(200);
+
+        assertEquals(1, sink.Events.size());
+        assertEquals(Limiter.SUMMARY, sink.Events.get(0).format);
+        assertEquals(4L, sink.Events.get(0).args[0]);
+    }
+
+    private static Limiter limiter(@NonNull SpecBuilder builder) {
+        return Limiter.of(builder.perTag(true).build(), new Catcher());
+    }
+
+    private static Event event(@NonNull String tag, long when) {
+        Event event = new Event();
+        event.what = tag;
+        event.who = tag;
+        event.when = when;
+        event.how = Level.I;
+        return event;
+    }
+}
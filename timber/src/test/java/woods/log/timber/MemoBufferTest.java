@@ -0,0 +1,171 @@
+package woods.log.timber;
+
+import android.support.annotation.NonNull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Calendar;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+
+public class MemoBufferTest {
+
+    private static final int ALL = Level.ALL.ordinal();
+
+    private static final int I = Level.I.ordinal();
+
+    /**
+     * Message making a record of 52 bytes with header
+     */
+    private static final String THIRTY = "abcdefghijklmnopqrstuvwxyz0123";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final FileChannel[] Channels = new FileChannel[Level.values().length];
+
+    private final AtomicLongArray Bytes = new AtomicLongArray(Level.values().length);
+
+    @Before
+    public void setUp() throws Exception {
+        Channels[ALL] = new FileOutputStream(folder.newFile("all.log")).getChannel();
+        Channels[I] = new FileOutputStream(folder.newFile("info.log")).getChannel();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Channels[ALL].close();
+        Channels[I].close();
+    }
+
+    @Test
+    public void eventIsWrittenInThreadtimeFormat() throws Exception {
+        Calendar calendar = Calendar.getInstance();
+        calendar.set(2017, Calendar.OCTOBER, 19, 10, 0, 5);
+        calendar.set(Calendar.MILLISECOND, 7);
+
+        MemoBuffer buffer = new MemoBuffer(256);
+        buffer.put(I, true, false, calendar.getTimeInMillis(), 1234, "Api", "hello");
+        buffer.put(I, true, true, calendar.getTimeInMillis(), 1234, "Api", "{\"bare\":true}");
+
+        assertEquals(2, buffer.drain(Channels, Bytes));
+        String all = read("all.log");
+        assertEquals("10-19 10:00:05.007  1234 I Api: hello\n{\"bare\":true}\n", all);
+        assertEquals(all.length(), Bytes.get(ALL));
+    }
+
+    @Test
+    public void onlyMatchedEventsGoToLevelFile() throws Exception {
+        MemoBuffer buffer = new MemoBuffer(256);
+        buffer.put(I, true, false, 0, 1, "Api", "matched");
+        buffer.put(I, false, false, 0, 1, "Api", "unmatched");
+
+        buffer.drain(Channels, Bytes);
+
+        assertEquals("matched\nunmatched\n", messages("all.log"));
+        assertEquals("matched\n", messages("info.log"));
+    }
+
+    @Test
+    public void recordNotFitInTailWrapsAroundRing() throws Exception {
+        MemoBuffer buffer = new MemoBuffer(128);
+        buffer.put(I, false, false, 0, 1, "Api", THIRTY);
+        buffer.put(I, false, false, 0, 1, "Api", THIRTY.toUpperCase());
+        assertEquals(2, buffer.drain(Channels, Bytes));
+
+        // 24 bytes left at the end, skipped with a mark
+        buffer.put(I, false, false, 0, 1, "Api", "wrapped");
+        assertEquals(1, buffer.drain(Channels, Bytes));
+
+        assertEquals(THIRTY + "\n" + THIRTY.toUpperCase() + "\nwrapped\n", messages("all.log"));
+        assertEquals(0, buffer.pressure());
+        assertFalse(buffer.pending());
+    }
+
+    @Test
+    public void tailTooNarrowForMarkIsSkipped() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 104; i++) {
+            sb.append('x');
+        }
+
+        // 2 bytes left at the end, not even room for a mark
+        MemoBuffer buffer = new MemoBuffer(128);
+        buffer.put(I, false, false, 0, 1, "Api", sb.toString());
+        buffer.drain(Channels, Bytes);
+
+        buffer.put(I, false, false, 0, 1, "Api", "wrapped");
+        assertEquals(1, buffer.drain(Channels, Bytes));
+
+        assertEquals(sb + "\nwrapped\n", messages("all.log"));
+    }
+
+    @Test
+    public void fullRingDropsNewest() throws Exception {
+        MemoBuffer buffer = new MemoBuffer(128);
+        buffer.put(I, false, false, 0, 1, "Api", THIRTY);
+        buffer.put(I, false, false, 0, 1, "Api", THIRTY);
+        buffer.put(I, false, false, 0, 1, "Api", "no room");
+
+        assertEquals(1, buffer.dropped());
+        assertEquals(104 * 100 / 128, buffer.pressure());
+
+        assertEquals(2, buffer.drain(Channels, Bytes));
+        assertEquals(THIRTY + "\n" + THIRTY + "\n", messages("all.log"));
+    }
+
+    @Test
+    public void awaitDrainedReturnsOnceMemoDrained() throws Exception {
+        final MemoBuffer buffer = new MemoBuffer(256);
+        buffer.put(I, false, false, 0, 1, "Api", "waited");
+
+        assertFalse(buffer.awaitDrained(50));
+
+        Thread memo = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(100);
+                    buffer.drain(Channels, Bytes);
+                } catch (Exception e) {
+                    throw new AssertionError(e);
+                }
+            }
+        };
+        memo.start();
+
+        assertTrue(buffer.awaitDrained(5000));
+        memo.join();
+        assertEquals("waited\n", messages("all.log"));
+    }
+
+    /**
+     * Lines of the file without header.
+     */
+    private String messages(@NonNull String name) throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (String line : read(name).split("\n")) {
+            sb.append(line.substring(line.indexOf(": ") + 2)).append('\n');
+        }
+
+        return sb.toString();
+    }
+
+    private String read(@NonNull String name) throws Exception {
+        File file = new File(folder.getRoot(), name);
+        return new String(Files.readAllBytes(file.toPath()), Charset.forName("UTF-8"));
+    }
+}
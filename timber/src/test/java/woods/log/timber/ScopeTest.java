@@ -0,0 +1,69 @@
+package woods.log.timber;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+
+public class ScopeTest {
+
+    @Test
+    public void withAddsKeyAndLeavesScopeAlone() {
+        Scope request = Scope.EMPTY.with("request", "7f3a");
+        Scope session = request.with("session", "42");
+
+        assertEquals(0, Scope.EMPTY.size());
+        assertEquals(1, request.size());
+        assertEquals(2, session.size());
+        assertEquals("request", session.key(0));
+        assertEquals("session", session.key(1));
+        assertEquals("7f3a", session.get("request"));
+        assertNull(request.get("session"));
+    }
+
+    @Test
+    public void withReplacesValueInPlace() {
+        Scope scope = Scope.EMPTY.with("request", "7f3a").with("session", "42");
+        Scope replaced = scope.with("request", "9c01");
+
+        assertEquals(2, replaced.size());
+        assertEquals("request", replaced.key(0));
+        assertEquals("9c01", replaced.get("request"));
+        assertEquals("7f3a", scope.get("request"));
+
+        assertSame(scope, scope.with("session", "42"));
+    }
+
+    @Test
+    public void withNullRemovesKey() {
+        Scope scope = Scope.EMPTY.with("request", "7f3a");
+
+        assertSame(Scope.EMPTY, scope.with("request", null));
+    }
+
+    @Test
+    public void withoutRemovesKeyAndKeepsOrder() {
+        Scope scope = Scope.EMPTY.with("a", "1").with("b", "2").with("c", "3");
+        Scope removed = scope.without("b");
+
+        assertEquals(2, removed.size());
+        assertEquals("a", removed.key(0));
+        assertEquals("c", removed.key(1));
+        assertEquals("3", removed.value(1));
+        assertEquals(3, scope.size());
+
+        assertSame(scope, scope.without("d"));
+        assertSame(Scope.EMPTY, Scope.EMPTY.with("a", "1").without("a"));
+    }
+
+    @Test
+    public void textIsQuotedWhenNeeded() {
+        Scope scope = Scope.EMPTY.with("request", "42").with("session", "a b")
+                .with("user", "say \"hi\"").with("empty", "");
+
+        assertEquals(" request=42 session=\"a b\" user=\"say \\\"hi\\\"\" empty=\"\"",
+                scope.appendTo(new StringBuilder()).toString());
+    }
+}
@@ -0,0 +1,110 @@
+package woods.log.timber;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+
+public class TalkersTreeTest {
+
+    private static final Milieu.CallSite[] SITES = new Milieu.CallSite[1001];
+
+    @Test
+    public void countsAreExactWhileSitesFit() {
+        TalkersTree.Sketch sketch = new TalkersTree.Sketch(4);
+        sketch.add(site(1), 10);
+        sketch.add(site(2), 30);
+        sketch.add(site(1), 5);
+
+        TalkersTree.Slot[] top = sketch.drain(4);
+
+        assertEquals(2, top.length);
+        assertSame(site(2), top[0].Site);
+        assertEquals(30, top[0].Chars);
+        assertEquals(1, top[0].Events);
+        assertSame(site(1), top[1].Site);
+        assertEquals(15, top[1].Chars);
+        assertEquals(2, top[1].Events);
+    }
+
+    @Test
+    public void newSiteTakesSlotOfLeast() {
+        TalkersTree.Sketch sketch = new TalkersTree.Sketch(2);
+        sketch.add(site(1), 10);
+        sketch.add(site(2), 5);
+        sketch.add(site(3), 1);
+
+        TalkersTree.Slot[] top = sketch.drain(2);
+
+        assertSame(site(1), top[0].Site);
+        assertSame(site(3), top[1].Site);
+        assertEquals(6, top[1].Chars);
+        assertEquals(2, top[1].Events);
+    }
+
+    @Test
+    public void heapIsKeptInOrder() {
+        TalkersTree.Sketch sketch = new TalkersTree.Sketch(16);
+        Random random = new Random(7);
+
+        for (int i = 0; i < 10000; i++) {
+            sketch.add(site(random.nextInt(64)), 1 + random.nextInt(200));
+
+            assertTrue(sketch.Size <= 16);
+            for (int j = 0; j < sketch.Size; j++) {
+                assertEquals(j, sketch.Heap[j].Position);
+                if (j > 0) {
+                    assertTrue(sketch.Heap[(j - 1) / 2].Chars <= sketch.Heap[j].Chars);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void heavyTalkerIsKept() {
+        TalkersTree.Sketch sketch = new TalkersTree.Sketch(8);
+        Random random = new Random(7);
+
+        for (int i = 0; i < 10000; i++) {
+            sketch.add(i % 4 == 0 ? site(1000) : site(random.nextInt(500)), 100);
+        }
+
+        TalkersTree.Slot[] top = sketch.drain(1);
+        assertEquals(1, top.length);
+        assertSame(site(1000), top[0].Site);
+        assertTrue(top[0].Chars >= 2500 * 100);
+    }
+
+    @Test
+    public void drainStartsOver() {
+        TalkersTree.Sketch sketch = new TalkersTree.Sketch(4);
+        for (int i = 0; i < 4; i++) {
+            sketch.add(site(i), 10 * (i + 1));
+        }
+
+        TalkersTree.Slot[] top = sketch.drain(3);
+        assertEquals(3, top.length);
+        assertEquals(40, top[0].Chars);
+        assertEquals(30, top[1].Chars);
+        assertEquals(20, top[2].Chars);
+
+        assertEquals(0, sketch.Size);
+        assertEquals(0, sketch.drain(3).length);
+
+        sketch.add(site(1), 5);
+        assertEquals(5, sketch.drain(3)[0].Chars);
+    }
+
+    private static Milieu.CallSite site(int line) {
+        if (SITES[line] == null) {
+            SITES[line] = new Milieu.CallSite(
+                    new StackTraceElement("com.app.Api", "call", "Api.java", line));
+        }
+
+        return SITES[line];
+    }
+}
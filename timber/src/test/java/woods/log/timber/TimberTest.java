@@ -1,5 +1,112 @@
 package woods.log.timber;
 
+import android.support.annotation.NonNull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
 
 public class TimberTest {
+
+    private final Catcher Sink = new Catcher();
+
+    @Before
+    public void setUp() {
+        Timber.plant(Sink);
+    }
+
+    @After
+    public void tearDown() {
+        Timber.Floor = 0;
+        Timber.uprootall();
+    }
+
+    @Test
+    public void eventTellsCaller() {
+        Timber.i("hello %d", 42);
+
+        assertEquals(1, Sink.Events.size());
+        Event event = Sink.Events.get(0);
+        assertEquals(Level.I, event.how);
+        assertEquals("hello 42", event.message());
+        assertEquals("TimberTest", event.who);
+        assertEquals("eventTellsCaller", event.where);
+        assertNull(event.why);
+    }
+
+    @Test
+    public void tagIsForNextCallOnly() {
+        Timber.tag("Api").w("first");
+        Timber.w("second");
+
+        assertEquals("Api", Sink.Events.get(0).what);
+        assertNull(Sink.Events.get(1).what);
+    }
+
+    @Test
+    public void levelsUnderFloorAreShed() {
+        Timber.Floor = Level.I.ordinal();
+
+        Timber.v("verbose");
+        Timber.tag("Api").d("debug");
+        Timber.i("info");
+        Timber.e(new IllegalStateException(), "error");
+
+        assertEquals(2, Sink.Events.size());
+        assertEquals(Level.I, Sink.Events.get(0).how);
+        // Tag of a call shed is not left for the next one
+        assertNull(Sink.Events.get(0).what);
+        assertEquals(Level.E, Sink.Events.get(1).how);
+        assertEquals(IllegalStateException.class, Sink.Events.get(1).why.getClass());
+    }
+
+    @Test
+    public void scopeGoesAlongWithEvents() throws Exception {
+        try (Scope.Exit ignored = Timber.enter("request", "7f3a")) {
+            Timber.i("inside");
+        }
+        Timber.i("outside");
+
+        assertEquals("inside request=7f3a", Sink.Events.get(0).text());
+        assertEquals("outside", Sink.Events.get(1).text());
+        assertEquals(0, Timber.scope().size());
+    }
+
+    @Test
+    public void uprootedSinkTakesNothing() {
+        Timber.uproot(Sink);
+        Timber.i("gone");
+        Timber.plant(Sink);
+
+        assertEquals(0, Sink.Events.size());
+    }
+
+    @Test
+    public void rulesOfIsolatedSinkAreCheckedOnCallingThread() {
+        final Thread[] admitted = new Thread[1];
+        Catcher sink = new Catcher() {
+            @Override
+            boolean admit(@NonNull Event event) {
+                admitted[0] = Thread.currentThread();
+                return !event.message().startsWith("noisy");
+            }
+        };
+        Bulkhead bulkhead = new Bulkhead(sink, 16, Overflow.BLOCK, 0);
+        Timber.plant(bulkhead);
+
+        Timber.i("noisy");
+        Timber.i("quiet");
+
+        assertTrue(bulkhead.flush(1000));
+        assertSame(Thread.currentThread(), admitted[0]);
+        assertEquals(1, sink.Events.size());
+        assertEquals("quiet", sink.Events.get(0).message());
+        assertEquals(1, bulkhead.Filtered.sum());
+    }
 }
@@ -0,0 +1,97 @@
+package woods.log.timber;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+
+public class ToolsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void makeDirectoryKeepsOldSpecFile() throws Exception {
+        long old = System.currentTimeMillis()
+                - (Tools.MAX_HOURS_TO_KEEP + 1) * Tools.ONE_HOUR_MILLIS;
+
+        File spec = folder.newFile(SpecWatcher.SPEC_FILE);
+        File log = folder.newFile("old.log");
+        assertTrue(spec.setLastModified(old));
+        assertTrue(log.setLastModified(old));
+
+        Tools.makeDirectory(folder.getRoot().getPath());
+
+        assertTrue(spec.exists());
+        assertFalse(log.exists());
+    }
+
+    @Test
+    public void fingerprintIsSameForSamePath() {
+        long[] hashes = new long[2];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = Tools.fingerprintException(thrown("message " + i));
+        }
+
+        // Messages are not hashed, only type and frames
+        assertEquals(hashes[0], hashes[1]);
+    }
+
+    @Test
+    public void fingerprintTellsTypeAndCause() {
+        long[] hashes = new long[3];
+        for (int i = 0; i < hashes.length; i++) {
+            Throwable t = i == 1 ? new IllegalStateException("fail") : thrown("fail");
+            if (i == 2) {
+                t.initCause(new RuntimeException());
+            }
+            hashes[i] = Tools.fingerprintException(t);
+        }
+
+        assertNotEquals(hashes[0], hashes[1]);
+        assertNotEquals(hashes[0], hashes[2]);
+    }
+
+    @Test
+    public void fingerprintStopsAtCauseOfItself() {
+        Throwable t = new Throwable() {
+            @Override
+            public synchronized Throwable getCause() {
+                return this;
+            }
+        };
+
+        Tools.fingerprintException(t);
+    }
+
+    @Test
+    public void serializeExceptionTellsCauseOnce() {
+        Throwable t = new RuntimeException("outer", new IllegalStateException("inner"));
+
+        String trace = Tools.serializeException(t);
+
+        assertTrue(trace.startsWith("java.lang.RuntimeException: outer"));
+        assertEquals(1, count(trace, "Caused by: java.lang.IllegalStateException: inner"));
+        assertEquals(1, count(trace, "inner"));
+    }
+
+    private static Throwable thrown(String message) {
+        return new IllegalArgumentException(message);
+    }
+
+    private static int count(String text, String part) {
+        int count = 0;
+        for (int i = text.indexOf(part); i >= 0; i = text.indexOf(part, i + 1)) {
+            count++;
+        }
+
+        return count;
+    }
+}
@@ -0,0 +1,189 @@
+package woods.log.timber;
+
+import android.support.annotation.NonNull;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+
+public class WoodTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Wood Planted;
+
+    @After
+    public void tearDown() {
+        if (Planted != null) {
+            Planted.uproot();
+        }
+    }
+
+    @Test
+    public void bufferPinnedOnPlantedWoodIsNotTaken() {
+        Planted = wood();
+        Planted.pin(new SpecBuilder().level(Level.D).build());
+        Planted.plant();
+
+        Planted.pin(new SpecBuilder().level(Level.D).buffer(4096).build());
+        for (int i = 0; i < 1000; i++) {
+            Planted.log(event("line " + i));
+        }
+
+        Stats.Branch branch = new Stats.Branch("Wood");
+        Planted.measure(branch);
+        // No buffer is there to fill, memo goes on reading logcat
+        assertEquals(-1, branch.dropped);
+    }
+
+    @Test
+    public void bufferPinnedBeforePlantIsDrained() throws Exception {
+        Planted = wood();
+        Planted.pin(new SpecBuilder().level(Level.D).buffer(512).build());
+        Planted.log(event("before plant"));
+        assertTrue(Planted.pressure() > 0);
+
+        Planted.plant();
+        Planted.log(event("after plant"));
+
+        assertTrue(Planted.flush(2000));
+        assertEquals(0, Planted.pressure());
+
+        String all = read(Level.ALL);
+        assertTrue(all, all.contains("I Api: before plant\n"));
+        assertTrue(all, all.contains("I Api: after plant\n"));
+    }
+
+    @Test
+    public void triggerIsNotBypassedByBuffer() {
+        Planted = wood();
+        Planted.pin(new SpecBuilder().level(Level.V).trigger(Level.E).buffer(512).build());
+        Planted.log(event("held until trigger"));
+
+        assertEquals(0, Planted.pressure());
+    }
+
+    @Test
+    public void flushIsNotDurableUntilMemoRuns() {
+        Planted = wood();
+        assertTrue(Planted.flush(0));
+
+        Planted.pin(new SpecBuilder().level(Level.D).buffer(512).build());
+        Planted.log(event("store not ready"));
+        assertFalse(Planted.flush(100));
+
+        Planted.plant();
+        assertTrue(Planted.flush(2000));
+    }
+
+    @Test
+    public void stampIsTimeOfYearOfLine() {
+        assertEquals(0, Wood.stampOf("01-01 00:00:00.000  1234  1234 I Api: first"));
+        assertEquals(((31L * 24 + 10) * 3600 + 1) * 1000 + 2,
+                Wood.stampOf("02-01 10:00:01.002  1234  1234 I Api: later"));
+        assertEquals(-1, Wood.stampOf("--------- beginning of main"));
+        assertEquals(-1, Wood.stampOf("13-01 00:00:00.000  1234  1234 I Api: no month"));
+        assertEquals(-1, Wood.stampOf("01-01"));
+    }
+
+    @Test
+    public void triggerTakesLinesByTheirOwnTime() throws Exception {
+        StringWriter out = new StringWriter();
+        BufferedWriter[] writers = new BufferedWriter[Level.A.ordinal()];
+        writers[Level.ALL.ordinal()] = new BufferedWriter(out);
+
+        Wood.Memo memo = wood().new Memo(folder.getRoot().getPath(), null);
+        memo.attach(Level.V, new SpecBuilder().level(Level.V).trigger(Level.E).before(1000)
+                .after(500).build(), writers);
+
+        // Read at once, as after a slow read, yet told apart by the time of each line
+        memo.readLine("10-19 10:00:00.000  1234  1234 I Api: too old");
+        memo.readLine("10-19 10:00:01.500  1234  1234 I Api: just before");
+        memo.readLine("--------- beginning of main");
+        memo.readLine("10-19 10:00:02.000  1234  1234 E Api: boom");
+        memo.readLine("10-19 10:00:02.400  1234  1234 I Api: just after");
+        memo.readLine("10-19 10:00:03.000  1234  1234 I Api: too late");
+        writers[Level.ALL.ordinal()].flush();
+
+        assertEquals("10-19 10:00:01.500  1234  1234 I Api: just before\n"
+                + "--------- beginning of main\n"
+                + "10-19 10:00:02.000  1234  1234 E Api: boom\n"
+                + "10-19 10:00:02.400  1234  1234 I Api: just after\n", out.toString());
+    }
+
+    @Test
+    public void memoReadingLogcatIsPressedByItsLag() throws Exception {
+        BufferedWriter[] writers = new BufferedWriter[Level.A.ordinal()];
+        writers[Level.ALL.ordinal()] = new BufferedWriter(new StringWriter());
+
+        Wood.Memo memo = wood().new Memo(folder.getRoot().getPath(), null);
+        memo.attach(Level.V, new SpecBuilder().level(Level.V).build(), writers);
+        SimpleDateFormat clock = new SimpleDateFormat("MM-dd HH:mm:ss.SSS", Locale.CHINA);
+        long now = clock.parse("10-19 10:00:05.000").getTime();
+
+        memo.readLine("10-19 10:00:04.700  1234  1234 I Api: behind");
+        memo.measureLag(true, now);
+        assertEquals(30, memo.pressure());
+
+        memo.readLine("10-19 10:00:01.000  1234  1234 I Api: far behind");
+        memo.measureLag(true, now);
+        assertEquals(100, memo.pressure());
+
+        // A line without time leaves the lag
+        memo.readLine("--------- beginning of main");
+        memo.measureLag(true, now);
+        assertEquals(100, memo.pressure());
+
+        memo.measureLag(false, now);
+        assertEquals(0, memo.pressure());
+    }
+
+    private Wood wood() {
+        final String store = folder.getRoot().getPath();
+
+        return new Wood() {
+            @Override
+            public void plant() {
+                ready(store);
+            }
+        };
+    }
+
+    private String read(@NonNull Level level) throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (File file : folder.getRoot().listFiles()) {
+            if (file.getName().endsWith("_Logs-" + level.name() + ".log")) {
+                sb.append(new String(Files.readAllBytes(file.toPath()), Charset.forName("UTF-8")));
+            }
+        }
+
+        return sb.toString();
+    }
+
+    private static Event event(@NonNull String message) {
+        Event event = new Event();
+        event.who = "Api";
+        event.where = "call";
+        event.what = "Api";
+        event.thread = "main";
+        event.when = System.currentTimeMillis();
+        event.bind(Level.I, null);
+        event.bind(message, null);
+        return event;
+    }
+}